@@ -138,6 +138,25 @@ public interface ClarabridgeChatCallback<T> {
         }
     }
 
+    /**
+     * A {@link ClarabridgeChatCallback} that is also notified of the progress of an upload.
+     * <p>
+     * Pass an instance of this interface to {@link Conversation#uploadFile(Message, ClarabridgeChatCallback)}
+     * to be notified on the main thread as the file is being uploaded.
+     *
+     * @param <T> the type of the data being returned
+     */
+    interface UploadCallback<T> extends ClarabridgeChatCallback<T> {
+
+        /**
+         * Invoked as the file is being uploaded, before {@link #run(Response)}.
+         *
+         * @param bytesSent  the number of bytes sent so far
+         * @param totalBytes the size of the file in bytes, or -1 if it is unknown
+         */
+        void onProgress(long bytesSent, long totalBytes);
+    }
+
     /**
      * Invoke the {@link ClarabridgeChatCallback} with the results of the action
      *
@@ -12,6 +12,10 @@ public class Settings {
     private final String authCode;
 
     private boolean firebaseCloudMessagingAutoRegistrationEnabled;
+    private boolean persistenceWriteBehindEnabled;
+    private boolean persistenceBinarySerializationEnabled;
+    private boolean realtimeCompressionEnabled;
+    private boolean realtimeCompressionContextTakeoverEnabled = true;
     @Nullable
     private String serviceBaseUrl;
     @Nullable
@@ -95,6 +99,108 @@ public class Settings {
         this.firebaseCloudMessagingAutoRegistrationEnabled = isEnabled;
     }
 
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should defer writing conversations and
+     * other cached data to disk to a background thread, coalescing repeated writes of the same data.
+     * <p>
+     * The default value is false.
+     *
+     * @return true if write-behind persistence is enabled, false otherwise
+     */
+    public boolean isPersistenceWriteBehindEnabled() {
+        return persistenceWriteBehindEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should defer writing conversations and
+     * other cached data to disk to a background thread, coalescing repeated writes of the same data.
+     * <p>
+     * The default value is false.
+     *
+     * @param isEnabled if write-behind persistence should be enabled
+     */
+    public void setPersistenceWriteBehindEnabled(boolean isEnabled) {
+        this.persistenceWriteBehindEnabled = isEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should store cached data on disk in a
+     * compact binary format instead of JSON. Data previously stored as JSON is still read when enabled.
+     * <p>
+     * The default value is false.
+     *
+     * @return true if binary persistence is enabled, false otherwise
+     */
+    public boolean isPersistenceBinarySerializationEnabled() {
+        return persistenceBinarySerializationEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should store cached data on disk in a
+     * compact binary format instead of JSON. Data previously stored as JSON is still read when enabled.
+     * <p>
+     * The default value is false.
+     *
+     * @param isEnabled if binary persistence should be enabled
+     */
+    public void setPersistenceBinarySerializationEnabled(boolean isEnabled) {
+        this.persistenceBinarySerializationEnabled = isEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should offer permessage-deflate
+     * compression when opening the realtime connection. Messages are only compressed if the server
+     * accepts the offer.
+     * <p>
+     * The default value is false.
+     *
+     * @return true if realtime compression is enabled, false otherwise
+     */
+    public boolean isRealtimeCompressionEnabled() {
+        return realtimeCompressionEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether ClarabridgeChat should offer permessage-deflate
+     * compression when opening the realtime connection. Messages are only compressed if the server
+     * accepts the offer.
+     * <p>
+     * The default value is false.
+     *
+     * @param isEnabled if realtime compression should be enabled
+     */
+    public void setRealtimeCompressionEnabled(boolean isEnabled) {
+        this.realtimeCompressionEnabled = isEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether the compression context of the realtime connection
+     * is kept from one message to the next. Keeping it compresses small, similar messages much
+     * better, while disabling it lowers the memory held for the connection. Only used when
+     * {@link #isRealtimeCompressionEnabled()} is true.
+     * <p>
+     * The default value is true.
+     *
+     * @return true if context takeover is enabled, false otherwise
+     */
+    public boolean isRealtimeCompressionContextTakeoverEnabled() {
+        return realtimeCompressionContextTakeoverEnabled;
+    }
+
+    /**
+     * A boolean property that indicates whether the compression context of the realtime connection
+     * is kept from one message to the next. Keeping it compresses small, similar messages much
+     * better, while disabling it lowers the memory held for the connection. Only used when
+     * {@link #isRealtimeCompressionEnabled()} is true.
+     * <p>
+     * The default value is true.
+     *
+     * @param isEnabled if context takeover should be enabled
+     */
+    public void setRealtimeCompressionContextTakeoverEnabled(boolean isEnabled) {
+        this.realtimeCompressionContextTakeoverEnabled = isEnabled;
+    }
+
     /**
      * A String that signifies which authority ClarabridgeChat will use to provide files to the CAMERA application.
      * <p>
@@ -2,12 +2,12 @@ package com.clarabridge.core.di;
 
 import androidx.annotation.Nullable;
 
-import dagger.Binds;
 import dagger.Module;
 import dagger.Provides;
 import com.clarabridge.core.AuthenticationDelegate;
 import com.clarabridge.core.Settings;
 import com.clarabridge.core.facade.Serialization;
+import com.clarabridge.core.facade.impl.LocalBinarySerializer;
 import com.clarabridge.core.facade.impl.LocalGsonSerializer;
 
 /**
@@ -22,8 +22,15 @@ abstract class ClarabridgeChatModule {
         return settings.getAuthenticationDelegate();
     }
 
-    @Binds
-    abstract Serialization serialization(
-            LocalGsonSerializer serializationLayerGson);
+    @Provides
+    @SdkScope
+    static Serialization serialization(
+            Settings settings,
+            LocalGsonSerializer serializationLayerGson) {
+        if (settings.isPersistenceBinarySerializationEnabled()) {
+            return new LocalBinarySerializer(serializationLayerGson);
+        }
+        return serializationLayerGson;
+    }
 }
 
@@ -0,0 +1,34 @@
+package com.clarabridge.core.facade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Describes a {@link Serialization} that stores objects in a binary form when writing to a
+ * stream. The {@link String} based operations of {@link Serialization} are still expected to
+ * produce and consume text.
+ */
+public interface BinarySerialization extends Serialization {
+
+    /**
+     * Serialize the given {@link Object} to the given {@link OutputStream}. Nothing is written if
+     * the object is null.
+     *
+     * @param object the {@link Object} to serialize
+     * @param outputStream the {@link OutputStream} to write the serialised object to
+     * @throws IOException if the object could not be written
+     */
+    void serialize(Object object, OutputStream outputStream) throws IOException;
+
+    /**
+     * Deserialize the data read from the given {@link InputStream} into an object of type {@link T}
+     *
+     * @param inputStream the {@link InputStream} to read the data from
+     * @param clazz specifies the type of of the deserialized {@link Object}
+     * @param <T> the type being returned
+     * @return an {@link Object} of type {@link T}, or null if the data was empty or invalid
+     */
+    <T> T deserialize(InputStream inputStream, Class<T> clazz);
+
+}
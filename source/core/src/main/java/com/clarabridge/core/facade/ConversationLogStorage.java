@@ -0,0 +1,654 @@
+package com.clarabridge.core.facade;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import com.clarabridge.core.Logger;
+import com.clarabridge.core.model.ConversationDto;
+import com.clarabridge.core.model.MessageDto;
+
+/**
+ * Storage implementation for {@link ConversationDto}s backed by one append-only log file per
+ * conversation.
+ * <p>
+ * A log is a sequence of records, each holding either the conversation without its messages
+ * (a header) or a single {@link MessageDto}. Replaying the log from the start and keeping the
+ * last record seen for the header and for each message rebuilds the stored conversation.
+ * <p>
+ * Records are framed in bytes, so if the given {@link Serialization} is a
+ * {@link BinarySerialization} their payloads are written in its binary encoding. Logs written
+ * before the byte framing was introduced, which do not start with {@link #LOG_FILE_MAGIC}, are
+ * read as text and rewritten.
+ * <p>
+ * An in-memory index of what has already been written lets {@link #put(String, Object)} append
+ * only the header and the messages that changed, so adding a message to a conversation costs a
+ * single record instead of a rewrite of the whole conversation. Superseded records are dropped
+ * by a compaction that runs on the given {@link Executor} once they outnumber the live ones.
+ * <p>
+ * A snapshot taken by {@link #snapshot(Object)} holds the serialized header and messages, so
+ * the conversation is only read while the caller guards it.
+ * <p>
+ * All operations on a conversation are synchronized on its index, so this storage does not need
+ * to be decorated with {@link SynchronizedStorage}.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+class ConversationLogStorage implements SnapshotStorage {
+
+    private static final String LOG_TAG = "ConversationLogStorage";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte[] LOG_FILE_MAGIC = "CCL2\n".getBytes(UTF_8);
+
+    private static final String LOG_FILE_SUFFIX = ".log";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final char RECORD_HEADER = 'H';
+    private static final char RECORD_MESSAGE = 'M';
+
+    private static final int MIN_DEAD_RECORDS_BEFORE_COMPACTION = 32;
+
+    private final File directory;
+    private final Serialization serializer;
+    private final FileOperators fileOperators;
+    private final Executor compactionExecutor;
+    private final Map<String, LogIndex> indexes = new HashMap<>();
+
+    /**
+     * Constructs an instance of {@link ConversationLogStorage}
+     *
+     * @param directory          The directory {@link File} to be maintained by this instance
+     * @param serializer         An instance of {@link Serialization} used to encode each record
+     * @param fileOperators      An instance of {@link FileOperators} for retrieving dependencies used for file I/O
+     * @param compactionExecutor The {@link Executor} on which logs are compacted
+     */
+    ConversationLogStorage(
+            File directory,
+            Serialization serializer,
+            FileOperators fileOperators,
+            Executor compactionExecutor) {
+        this.directory = directory;
+        this.serializer = serializer;
+        this.fileOperators = fileOperators;
+        this.compactionExecutor = compactionExecutor;
+    }
+
+    @Override
+    public void put(String key, @Nullable Object data) {
+        try {
+            putSnapshot(key, snapshot(data));
+        } catch (IOException e) {
+            Logger.e(LOG_TAG, "Unable to serialize conversation (%s)", key);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object snapshot(@Nullable Object data) throws IOException {
+        if (!(data instanceof ConversationDto)) {
+            return data;
+        }
+
+        ConversationDto conversation = (ConversationDto) data;
+        return new LogSnapshot(serialize(createHeader(conversation)), serializeMessages(conversation));
+    }
+
+    @Override
+    public void putSnapshot(String key, @Nullable Object snapshot) {
+        if (snapshot == null) {
+            remove(key);
+            return;
+        }
+
+        if (!(snapshot instanceof LogSnapshot)) {
+            Logger.e(LOG_TAG, "Unable to store %s, only conversations are supported (%s)",
+                    snapshot.getClass().getSimpleName(), key);
+            return;
+        }
+
+        LogSnapshot conversation = (LogSnapshot) snapshot;
+        LogIndex index = getIndex(key);
+
+        synchronized (index) {
+            try {
+                if (!index.loaded) {
+                    replay(index);
+                }
+                append(index, conversation.header, conversation.messages);
+            } catch (IOException e) {
+                Logger.e(LOG_TAG, "Unable to write data to log (%s)", key);
+                index.reset();
+            }
+
+            if (index.getDeadRecordCount() > Math.max(MIN_DEAD_RECORDS_BEFORE_COMPACTION, index.messages.size())) {
+                scheduleCompaction(index);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        if (!clazz.isAssignableFrom(ConversationDto.class)) {
+            return null;
+        }
+
+        LogIndex index = getIndex(key);
+
+        synchronized (index) {
+            try {
+                LogContents contents = replay(index);
+                return contents != null ? clazz.cast(contents.conversation) : null;
+            } catch (IOException e) {
+                Logger.e(LOG_TAG, "Unable to read data from log (%s)", key);
+                index.reset();
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        LogIndex index = getIndex(key);
+
+        synchronized (index) {
+            index.file.delete();
+            index.reset();
+            index.loaded = true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        List<LogIndex> existingIndexes;
+        synchronized (indexes) {
+            existingIndexes = new ArrayList<>(indexes.values());
+        }
+
+        for (LogIndex index : existingIndexes) {
+            synchronized (index) {
+                index.reset();
+            }
+        }
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Gets the {@link LogIndex} for the given key, creating an unloaded one if none exists yet.
+     *
+     * @param key the key of the conversation
+     * @return the {@link LogIndex} of the conversation
+     */
+    @NonNull
+    private LogIndex getIndex(String key) {
+        synchronized (indexes) {
+            LogIndex index = indexes.get(key);
+            if (index == null) {
+                index = new LogIndex(new File(directory, key + LOG_FILE_SUFFIX));
+                indexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Appends the header and every message of a conversation that differ from what was last
+     * written to the log. If messages were removed or reordered the log can no longer describe
+     * the conversation by appending, and it is rewritten instead.
+     *
+     * @param index    the loaded {@link LogIndex} of the conversation
+     * @param header   the serialized header of the conversation being stored
+     * @param messages the serialized messages of the conversation being stored, by message key
+     * @throws IOException if the log could not be written
+     */
+    private void append(LogIndex index, byte[] header, Map<String, byte[]> messages) throws IOException {
+        if (!isAppendOnly(index, messages)) {
+            rewrite(index, header, messages);
+            return;
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        int recordCount = 0;
+
+        if (!Arrays.equals(header, index.header)) {
+            LogRecords.appendRecord(records, RECORD_HEADER, header);
+            index.header = header;
+            recordCount++;
+        }
+
+        for (Map.Entry<String, byte[]> message : messages.entrySet()) {
+            long fingerprint = LogRecords.fingerprint(message.getValue());
+            Long previousFingerprint = index.messages.get(message.getKey());
+            if (previousFingerprint == null || previousFingerprint != fingerprint) {
+                LogRecords.appendRecord(records, RECORD_MESSAGE, message.getValue());
+                index.messages.put(message.getKey(), fingerprint);
+                recordCount++;
+            }
+        }
+
+        if (recordCount == 0) {
+            return;
+        }
+
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+
+        OutputStream outputStream = fileOperators.getAppendingOutputStream(index.file);
+        try {
+            records.writeTo(outputStream);
+        } finally {
+            outputStream.close();
+        }
+        index.recordCount += recordCount;
+    }
+
+    /**
+     * Checks that every message already in the log is still present and in the same order, with
+     * any new messages following them.
+     *
+     * @param index    the loaded {@link LogIndex} of the conversation
+     * @param messages the serialized messages of the conversation being stored, by message key
+     * @return true if the conversation can be stored by appending to the log, false otherwise
+     */
+    private boolean isAppendOnly(LogIndex index, Map<String, byte[]> messages) {
+        if (!index.file.exists() || messages.size() < index.messages.size()) {
+            return false;
+        }
+
+        Iterator<String> newKeys = messages.keySet().iterator();
+        for (String loggedKey : index.messages.keySet()) {
+            if (!loggedKey.equals(newKeys.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the log with one holding a single record for the header and for each message.
+     *
+     * @param index    the {@link LogIndex} of the conversation
+     * @param header   the serialized header
+     * @param messages the serialized messages, by message key
+     * @throws IOException if the log could not be written
+     */
+    private void rewrite(LogIndex index, byte[] header, Map<String, byte[]> messages) throws IOException {
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(directory, index.file.getName() + TEMP_FILE_SUFFIX);
+        OutputStream outputStream = fileOperators.getBufferedOutputStream(tempFile);
+        try {
+            outputStream.write(LOG_FILE_MAGIC);
+
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            LogRecords.appendRecord(record, RECORD_HEADER, header);
+            record.writeTo(outputStream);
+
+            for (byte[] message : messages.values()) {
+                record.reset();
+                LogRecords.appendRecord(record, RECORD_MESSAGE, message);
+                record.writeTo(outputStream);
+            }
+        } finally {
+            outputStream.close();
+        }
+
+        if (!tempFile.renameTo(index.file)) {
+            tempFile.delete();
+            throw new IOException("Unable to replace " + index.file.getName());
+        }
+
+        index.header = header;
+        index.messages.clear();
+        for (Map.Entry<String, byte[]> message : messages.entrySet()) {
+            index.messages.put(message.getKey(), LogRecords.fingerprint(message.getValue()));
+        }
+        index.recordCount = 1 + messages.size();
+        index.loaded = true;
+    }
+
+    /**
+     * Reads the log from the start, rebuilding the {@link LogIndex} as it goes. If the log ends
+     * with an incomplete record, left behind by a write that was interrupted, the log is rewritten
+     * from the complete records so that later appends are not lost behind it. A log written as
+     * text is rewritten with byte framing.
+     *
+     * @param index the {@link LogIndex} of the conversation
+     * @return the {@link LogContents} of the log, or null if nothing was stored
+     * @throws IOException if the log could not be read
+     */
+    @Nullable
+    private LogContents replay(LogIndex index) throws IOException {
+        index.reset();
+        index.loaded = true;
+
+        if (!index.file.exists()) {
+            return null;
+        }
+
+        byte[] header = null;
+        LinkedHashMap<String, byte[]> payloads = new LinkedHashMap<>();
+        LinkedHashMap<String, MessageDto> messages = new LinkedHashMap<>();
+        boolean complete = true;
+        boolean text = false;
+        int recordCount = 0;
+        long fileLength = index.file.length();
+
+        InputStream inputStream = fileOperators.getBufferedInputStream(index.file);
+        try {
+            Reader reader = null;
+            if (!readMagic(inputStream)) {
+                reader = new InputStreamReader(inputStream, UTF_8);
+                text = true;
+            }
+
+            int type;
+            while ((type = text ? reader.read() : inputStream.read()) != -1) {
+                byte[] payload = text
+                        ? toBytes(LogRecords.readPayload(reader, fileLength))
+                        : LogRecords.readPayload(inputStream, fileLength);
+
+                if (payload == null) {
+                    complete = false;
+                    break;
+                }
+
+                if (type == RECORD_HEADER) {
+                    header = payload;
+                } else if (type == RECORD_MESSAGE) {
+                    MessageDto message = deserialize(payload, MessageDto.class);
+                    if (message != null) {
+                        String messageKey = getMessageKey(message, messages.size());
+                        payloads.put(messageKey, payload);
+                        messages.put(messageKey, message);
+                    }
+                } else {
+                    complete = false;
+                    break;
+                }
+                recordCount++;
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        ConversationDto conversation = header != null
+                ? deserialize(header, ConversationDto.class)
+                : null;
+
+        if (conversation == null) {
+            Logger.w(LOG_TAG, "Discarding log without a conversation header (%s)", index.file.getName());
+            index.file.delete();
+            return null;
+        }
+
+        conversation.setMessages(new ArrayList<>(messages.values()));
+        LogContents contents = new LogContents(conversation, header, payloads);
+
+        if (!complete || text) {
+            if (!complete) {
+                Logger.w(LOG_TAG, "Recovering incomplete log (%s)", index.file.getName());
+            }
+            rewrite(index, header, payloads);
+            return contents;
+        }
+
+        index.header = header;
+        for (Map.Entry<String, byte[]> payload : payloads.entrySet()) {
+            index.messages.put(payload.getKey(), LogRecords.fingerprint(payload.getValue()));
+        }
+        index.recordCount = recordCount;
+        return contents;
+    }
+
+    /**
+     * Reads the start of a log, checking whether it was written with byte framing.
+     *
+     * @param inputStream a buffered {@link InputStream} of the log, which is left positioned after
+     *                    {@link #LOG_FILE_MAGIC} if the log starts with it, or at its start otherwise
+     * @return true if the log starts with {@link #LOG_FILE_MAGIC}, false otherwise
+     * @throws IOException if the log could not be read
+     */
+    private boolean readMagic(InputStream inputStream) throws IOException {
+        inputStream.mark(LOG_FILE_MAGIC.length);
+
+        for (byte expected : LOG_FILE_MAGIC) {
+            if (inputStream.read() != expected) {
+                inputStream.reset();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serializes the given object into the payload of a record, in the binary encoding of the
+     * serializer if it has one.
+     *
+     * @param object the object to be serialized
+     * @return the serialized payload
+     * @throws IOException if the object could not be serialized
+     */
+    @NonNull
+    private byte[] serialize(Object object) throws IOException {
+        if (serializer instanceof BinarySerialization) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ((BinarySerialization) serializer).serialize(object, outputStream);
+            return outputStream.toByteArray();
+        }
+        return serializer.serialize(object).getBytes(UTF_8);
+    }
+
+    /**
+     * Deserializes the payload of a record.
+     *
+     * @param payload the payload of the record
+     * @param clazz   the type for deserialization
+     * @return the deserialized object, or null if the payload could not be deserialized
+     */
+    @Nullable
+    private <T> T deserialize(byte[] payload, Class<T> clazz) {
+        if (serializer instanceof BinarySerialization) {
+            return ((BinarySerialization) serializer).deserialize(new ByteArrayInputStream(payload), clazz);
+        }
+        return serializer.deserialize(new String(payload, UTF_8), clazz);
+    }
+
+    @Nullable
+    private byte[] toBytes(@Nullable String payload) {
+        return payload != null ? payload.getBytes(UTF_8) : null;
+    }
+
+    /**
+     * Schedules a compaction of the given log on the compaction {@link Executor}, unless one is
+     * already pending.
+     *
+     * @param index the {@link LogIndex} of the conversation to be compacted
+     */
+    private void scheduleCompaction(final LogIndex index) {
+        if (index.compactionScheduled) {
+            return;
+        }
+        index.compactionScheduled = true;
+
+        compactionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (index) {
+                    index.compactionScheduled = false;
+                    try {
+                        compact(index);
+                    } catch (IOException e) {
+                        Logger.e(LOG_TAG, "Unable to compact log (%s)", index.file.getName());
+                        index.reset();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Rewrites the log of the given {@link LogIndex} keeping only the last record of the header
+     * and of each message.
+     *
+     * @param index the {@link LogIndex} of the conversation to be compacted
+     * @throws IOException if the log could not be read or written
+     */
+    @VisibleForTesting
+    void compact(LogIndex index) throws IOException {
+        LogContents contents = replay(index);
+
+        if (contents == null || index.getDeadRecordCount() == 0) {
+            return;
+        }
+
+        rewrite(index, contents.header, contents.messages);
+    }
+
+    /**
+     * Creates a copy of the given {@link ConversationDto} without any messages.
+     *
+     * @param conversation the {@link ConversationDto} to copy
+     * @return the header to be written to the log
+     */
+    @NonNull
+    private ConversationDto createHeader(ConversationDto conversation) {
+        ConversationDto header = new ConversationDto();
+        header.update(conversation);
+        header.setMessages(new ArrayList<MessageDto>());
+        return header;
+    }
+
+    /**
+     * Serializes every message of the given {@link ConversationDto}, preserving their order.
+     *
+     * @param conversation the {@link ConversationDto} whose messages should be serialized
+     * @return the serialized messages, by message key
+     * @throws IOException if a message could not be serialized
+     */
+    @NonNull
+    private LinkedHashMap<String, byte[]> serializeMessages(ConversationDto conversation) throws IOException {
+        List<MessageDto> messages = conversation.getMessages();
+        LinkedHashMap<String, byte[]> serializedMessages = new LinkedHashMap<>();
+
+        synchronized (messages) {
+            for (MessageDto message : messages) {
+                serializedMessages.put(getMessageKey(message, serializedMessages.size()), serialize(message));
+            }
+        }
+        return serializedMessages;
+    }
+
+    /**
+     * Gets the key identifying a message within its log. The creation time is preferred since it
+     * is assigned locally before a message is sent and is kept once the server assigns an ID.
+     *
+     * @param message  the {@link MessageDto} to identify
+     * @param position the position of the message in the conversation, used when it has no identifier
+     * @return the key of the message
+     */
+    @NonNull
+    private String getMessageKey(MessageDto message, int position) {
+        if (message.getCreated() != null) {
+            return "c" + message.getCreated();
+        }
+        if (message.getId() != null) {
+            return "i" + message.getId();
+        }
+        return "p" + position;
+    }
+
+    /**
+     * A conversation serialized by {@link #snapshot(Object)}.
+     */
+    private static class LogSnapshot {
+
+        final byte[] header;
+        final LinkedHashMap<String, byte[]> messages;
+
+        LogSnapshot(byte[] header, LinkedHashMap<String, byte[]> messages) {
+            this.header = header;
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * The result of replaying a conversation log.
+     */
+    private static class LogContents {
+
+        final ConversationDto conversation;
+        final byte[] header;
+        final LinkedHashMap<String, byte[]> messages;
+
+        LogContents(ConversationDto conversation, byte[] header, LinkedHashMap<String, byte[]> messages) {
+            this.conversation = conversation;
+            this.header = header;
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * The in-memory index of a conversation log, describing what has been written to it.
+     */
+    @VisibleForTesting
+    static class LogIndex {
+
+        final File file;
+        final LinkedHashMap<String, Long> messages = new LinkedHashMap<>();
+        @Nullable
+        byte[] header;
+        int recordCount;
+        boolean loaded;
+        boolean compactionScheduled;
+
+        LogIndex(File file) {
+            this.file = file;
+        }
+
+        /**
+         * @return the number of records in the log that have been superseded by a later record
+         */
+        int getDeadRecordCount() {
+            return header == null ? 0 : recordCount - 1 - messages.size();
+        }
+
+        /**
+         * Forgets everything known about the log so that it is replayed on next access.
+         */
+        void reset() {
+            messages.clear();
+            header = null;
+            recordCount = 0;
+            loaded = false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.clarabridge.core.facade;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+
+import com.clarabridge.core.di.SdkScope;
+
+/**
+ * Factory for creating instances of {@link ConversationLogStorage}
+ */
+@SdkScope
+class ConversationLogStorageFactory {
+
+    @SuppressWarnings("FieldCanBeLocal")
+    private static String CONVERSATION_LOG_NAMESPACE = "-conversation-log";
+
+    private Context context;
+    private Serialization serializer;
+    private FileOperators fileOperators;
+    private Executor compactionExecutor;
+    private Map<String, SnapshotStorage> conversationLogStorageMap;
+
+    /**
+     * Creates an instance of {@link ConversationLogStorageFactory}
+     *
+     * @param context       an instance of {@link Context} for retrieving the app internal files directory
+     * @param serializer    an instance of {@link Serialization}
+     *                      for serialising objects
+     * @param fileOperators an instance of {@link FileOperators}
+     */
+    @Inject
+    ConversationLogStorageFactory(
+            Context context,
+            Serialization serializer,
+            FileOperators fileOperators) {
+        this.context = context;
+        this.serializer = serializer;
+        this.fileOperators = fileOperators;
+        this.compactionExecutor = Executors.newSingleThreadExecutor();
+        this.conversationLogStorageMap = new HashMap<>();
+    }
+
+    /**
+     * Retrieves a cached instance of {@link ConversationLogStorage} if one exists for the given key,
+     * or creates and caches a new instance.
+     *
+     * @param key The key for accessing an instance of {@link ConversationLogStorage}
+     * @return an instance of {@link ConversationLogStorage}
+     */
+    synchronized SnapshotStorage create(String key) {
+        if (!conversationLogStorageMap.containsKey(key)) {
+            File directory = new File(context.getFilesDir(), key + CONVERSATION_LOG_NAMESPACE);
+            ConversationLogStorage conversationLogStorage = new ConversationLogStorage(
+                    directory,
+                    serializer,
+                    fileOperators,
+                    compactionExecutor
+            );
+            conversationLogStorageMap.put(key, conversationLogStorage);
+        }
+        return conversationLogStorageMap.get(key);
+    }
+}
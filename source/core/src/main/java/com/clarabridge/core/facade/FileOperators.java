@@ -1,10 +1,21 @@
 package com.clarabridge.core.facade;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
 
 import javax.inject.Inject;
 
@@ -13,31 +24,89 @@ import javax.inject.Inject;
  */
 class FileOperators {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     @Inject
     FileOperators() {
         // Intentionally empty
     }
 
     /**
-     * Gets an instance of {@link FileWriter} for writing data to the given {@link File} object
+     * Gets an instance of {@link FileOutputStream} that replaces the contents of the given {@link File}
+     *
+     * @param file The {@link File} object to be written to
+     * @return an instance of {@link FileOutputStream}
+     * @throws IOException if the file could not be found or modified
+     */
+    FileOutputStream getFileOutputStream(File file) throws IOException {
+        return new FileOutputStream(file);
+    }
+
+    /**
+     * Gets a buffered {@link InputStream} for reading from the given {@link File}. The returned
+     * stream supports {@link InputStream#mark(int)}.
+     *
+     * @param file The {@link File} object to read from
+     * @return an instance of {@link InputStream}
+     * @throws FileNotFoundException if the file could not be found
+     */
+    InputStream getBufferedInputStream(File file) throws FileNotFoundException {
+        return new BufferedInputStream(new FileInputStream(file));
+    }
+
+    /**
+     * Gets a buffered {@link OutputStream} that replaces the contents of the given {@link File}
+     *
+     * @param file The {@link File} object to be written to
+     * @return an instance of {@link OutputStream}
+     * @throws IOException if the file could not be found or modified
+     */
+    OutputStream getBufferedOutputStream(File file) throws IOException {
+        return new BufferedOutputStream(new FileOutputStream(file));
+    }
+
+    /**
+     * Gets a buffered {@link OutputStream} that appends to the end of the given {@link File}
+     *
+     * @param file The {@link File} object to be appended to
+     * @return an instance of {@link OutputStream}
+     * @throws IOException if the file could not be found or modified
+     */
+    OutputStream getAppendingOutputStream(File file) throws IOException {
+        return new BufferedOutputStream(new FileOutputStream(file, true));
+    }
+
+    /**
+     * Gets a buffered UTF-8 {@link Writer} that replaces the contents of the given {@link File}
      *
      * @param file The {@link File} object to be written to
-     * @return an instance of {@link FileWriter}
+     * @return an instance of {@link Writer}
+     * @throws IOException if the file could not be found or modified
+     */
+    Writer getBufferedWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8));
+    }
+
+    /**
+     * Gets a buffered UTF-8 {@link Writer} that appends to the end of the given {@link File}
+     *
+     * @param file The {@link File} object to be appended to
+     * @return an instance of {@link Writer}
      * @throws IOException if the file could not be found or modified
      */
-    FileWriter getFileWriter(File file) throws IOException {
-        return new FileWriter(file);
+    Writer getAppendingWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
     }
 
     /**
-     * Gets an instance of {@link FileReader} for reading from the given file
+     * Gets a buffered UTF-8 {@link Reader} for reading from the given {@link File}
      *
      * @param file The {@link File} object to read from
-     * @return an instance of {@link FileReader}
+     * @return an instance of {@link Reader}
      * @throws FileNotFoundException if the file could not be found
      */
-    FileReader getFileReader(File file) throws FileNotFoundException {
-        return new FileReader(file);
+    Reader getBufferedReader(File file) throws FileNotFoundException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
     }
 
 }
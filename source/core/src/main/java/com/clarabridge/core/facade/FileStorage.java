@@ -3,24 +3,69 @@ package com.clarabridge.core.facade;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 import com.clarabridge.core.Logger;
 
 /**
  * Storage implementation for storing object types to a file
+ * <p>
+ * Keys map directly to file names within the directory. The names of the files that exist are
+ * listed once and then tracked in memory, so reading a key that was never stored does not touch
+ * the file system.
+ * <p>
+ * If the given {@link Serialization} is a {@link StreamingSerialization}, data is serialized
+ * straight to and from buffered file streams instead of going through an intermediate
+ * {@link String}. If it is a {@link BinarySerialization}, the data is written to and read from
+ * the file streams as bytes.
+ * <p>
+ * Files are written to a temporary file that is synced to disk and then renamed over the
+ * previous file, so an interrupted write never leaves a partially written file in its place.
+ * Each file starts with a header holding the length and CRC32 checksum of the data, which allows
+ * a damaged file to be discarded without attempting to deserialize it. Files written before the
+ * header was introduced are still read.
+ * <p>
+ * A snapshot taken by {@link #snapshot(Object)} holds the serialized data, so writing it only
+ * copies those bytes to the file.
  */
 @SuppressWarnings("ResultOfMethodCallIgnored")
-class FileStorage implements BaseStorage {
+class FileStorage implements SnapshotStorage {
 
     private static final String LOG_TAG = "FileStorage";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final String HEADER_MAGIC = "CCS1";
+    private static final String HEADER_FORMAT = HEADER_MAGIC + " %08x %016x\n";
+    private static final int HEADER_LENGTH = String.format(Locale.US, HEADER_FORMAT, 0, 0L).length();
 
     private File directory;
     private Serialization serializer;
     private FileOperators fileOperators;
+    @Nullable
+    private Set<String> existingKeys;
 
     /**
      * Constructs an instance of {@link FileStorage}
@@ -40,42 +85,225 @@ class FileStorage implements BaseStorage {
 
     @Override
     public void put(String key, @Nullable Object data) {
-        String value = serializer.serialize(data);
+        File file = getFile(key);
+        File tempFile = new File(directory, key + TEMP_FILE_SUFFIX);
+
         try {
-            FileWriter fileWriter = fileOperators.getFileWriter(getFile(key));
-            fileWriter.write(value);
-            fileWriter.close();
+            FileOutputStream fileOutputStream = fileOperators.getFileOutputStream(tempFile);
+            try {
+                writeData(fileOutputStream, data);
+            } finally {
+                fileOutputStream.close();
+            }
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Unable to replace " + key);
+            }
+            getExistingKeys().add(key);
         } catch (IOException e) {
             Logger.e(LOG_TAG, "Unable to write data to file (%s)", key);
+            tempFile.delete();
         }
     }
 
+    @Nullable
+    @Override
+    public Object snapshot(@Nullable Object data) throws IOException {
+        if (data == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serialize(outputStream, data);
+        return new Snapshot(outputStream.toByteArray());
+    }
+
+    @Override
+    public void putSnapshot(String key, @Nullable Object snapshot) {
+        if (snapshot == null) {
+            remove(key);
+            return;
+        }
+
+        put(key, snapshot);
+    }
+
     @Nullable
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        StringBuilder stringBuilder = new StringBuilder();
+        if (!getExistingKeys().contains(key)) {
+            return null;
+        }
+
+        File file = getFile(key);
+
         try {
-            FileReader fileReader = fileOperators.getFileReader(getFile(key));
-            int character = fileReader.read();
-            while (character != -1) {
-                stringBuilder.append((char) character);
-                character = fileReader.read();
+            InputStream inputStream = fileOperators.getBufferedInputStream(file);
+            try {
+                return readData(inputStream, file.length(), key, clazz);
+            } finally {
+                inputStream.close();
             }
         } catch (IOException e) {
             Logger.e(LOG_TAG, "Unable to read data from file (%s)", key);
             return null;
         }
-        return serializer.deserialize(stringBuilder.toString(), clazz);
     }
 
     @Override
     public void remove(String key) {
         getFile(key).delete();
+        getExistingKeys().remove(key);
     }
 
     @Override
     public void clear() {
         recursiveClear(directory);
+        synchronized (this) {
+            existingKeys = null;
+        }
+    }
+
+    /**
+     * Writes the header followed by the serialized data to the given {@link FileOutputStream},
+     * then syncs it to disk. The header is written last, once the length and checksum of the data
+     * are known, in the space reserved for it at the start of the file.
+     *
+     * @param fileOutputStream the {@link FileOutputStream} of the file being written
+     * @param data the data to be stored, or a {@link Snapshot} of it
+     * @throws IOException if the data could not be written
+     */
+    private void writeData(FileOutputStream fileOutputStream, @Nullable Object data) throws IOException {
+        FileChannel channel = fileOutputStream.getChannel();
+        channel.position(HEADER_LENGTH);
+
+        CRC32 checksum = new CRC32();
+        OutputStream outputStream = new CheckedOutputStream(new BufferedOutputStream(fileOutputStream), checksum);
+
+        if (data instanceof Snapshot) {
+            outputStream.write(((Snapshot) data).bytes);
+        } else {
+            serialize(outputStream, data);
+        }
+        outputStream.flush();
+
+        long length = channel.position() - HEADER_LENGTH;
+        String header = String.format(Locale.US, HEADER_FORMAT, checksum.getValue(), length);
+        channel.write(ByteBuffer.wrap(header.getBytes(UTF_8)), 0);
+        fileOutputStream.getFD().sync();
+    }
+
+    /**
+     * Serializes the given data to the given {@link OutputStream}, streaming it if the serializer
+     * supports it.
+     *
+     * @param outputStream the {@link OutputStream} to write the data to
+     * @param data the data to be serialized
+     * @throws IOException if the data could not be written
+     */
+    private void serialize(OutputStream outputStream, @Nullable Object data) throws IOException {
+        if (serializer instanceof BinarySerialization) {
+            ((BinarySerialization) serializer).serialize(data, outputStream);
+            return;
+        }
+
+        Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+        if (serializer instanceof StreamingSerialization) {
+            ((StreamingSerialization) serializer).serialize(data, writer);
+        } else {
+            writer.write(serializer.serialize(data));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads and deserializes the data of a file. If the file has a header, its length is checked
+     * before reading and its checksum once the data has been read, and the data is discarded if
+     * either does not match.
+     *
+     * @param inputStream a buffered {@link InputStream} of the file
+     * @param fileLength the length of the file in bytes
+     * @param key the key for identifying the data
+     * @param clazz the type for deserialization
+     * @return the stored data, or null if the type was invalid, nothing was stored, or the file was damaged
+     * @throws IOException if the file could not be read
+     */
+    @Nullable
+    private <T> T readData(InputStream inputStream, long fileLength, String key, Class<T> clazz) throws IOException {
+        inputStream.mark(HEADER_LENGTH);
+        byte[] headerBytes = new byte[HEADER_LENGTH];
+        int headerLength = 0;
+        int read = 0;
+        while (headerLength < HEADER_LENGTH && read != -1) {
+            read = inputStream.read(headerBytes, headerLength, HEADER_LENGTH - headerLength);
+            headerLength += Math.max(read, 0);
+        }
+
+        String header = new String(headerBytes, 0, headerLength, UTF_8);
+        if (!header.startsWith(HEADER_MAGIC)) {
+            inputStream.reset();
+            return deserialize(inputStream, clazz);
+        }
+
+        long expectedChecksum;
+        long expectedLength;
+        try {
+            String[] fields = header.trim().split(" ");
+            expectedChecksum = Long.parseLong(fields[1], 16);
+            expectedLength = Long.parseLong(fields[2], 16);
+        } catch (RuntimeException e) {
+            Logger.w(LOG_TAG, "Discarding file with a malformed header (%s)", key);
+            return null;
+        }
+
+        if (fileLength != HEADER_LENGTH + expectedLength) {
+            Logger.w(LOG_TAG, "Discarding incomplete file (%s)", key);
+            return null;
+        }
+
+        CheckedInputStream checkedInputStream = new CheckedInputStream(inputStream, new CRC32());
+        T data = deserialize(checkedInputStream, clazz);
+
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        while (checkedInputStream.read(buffer) != -1) {
+            // Consume any data left unread by the serializer so that the checksum covers all of it
+        }
+
+        if (checkedInputStream.getChecksum().getValue() != expectedChecksum) {
+            Logger.w(LOG_TAG, "Discarding file with an invalid checksum (%s)", key);
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Deserializes the data read from the given {@link InputStream}, streaming it if the
+     * serializer supports it.
+     *
+     * @param inputStream the {@link InputStream} to read the data from
+     * @param clazz the type for deserialization
+     * @return the deserialized data, or null if the type was invalid or nothing was stored
+     * @throws IOException if the data could not be read
+     */
+    @Nullable
+    private <T> T deserialize(InputStream inputStream, Class<T> clazz) throws IOException {
+        if (serializer instanceof BinarySerialization) {
+            return ((BinarySerialization) serializer).deserialize(inputStream, clazz);
+        }
+
+        Reader reader = new InputStreamReader(inputStream, UTF_8);
+        if (serializer instanceof StreamingSerialization) {
+            return ((StreamingSerialization) serializer).deserialize(reader, clazz);
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read = reader.read(buffer);
+        while (read != -1) {
+            stringBuilder.append(buffer, 0, read);
+            read = reader.read(buffer);
+        }
+        return serializer.deserialize(stringBuilder.toString(), clazz);
     }
 
     /**
@@ -98,27 +326,56 @@ class FileStorage implements BaseStorage {
     }
 
     /**
-     * Gets an instance of {@link File} with the given key as its name. Will retrieve
-     * an existing file or create a new one if there is none.
+     * Gets the keys of the files stored in the directory, listing the directory the first time
+     * it is accessed. The directory is created at that point if it does not exist yet, and any
+     * temporary file left behind by an interrupted write is deleted.
      *
-     * @param key The name of the file
-     * @return An existing file if any, or a new file instance
+     * @return a synchronized {@link Set} of the stored keys
      */
-    @VisibleForTesting
-    File getFile(String key) {
-        if (!directory.isDirectory()) {
-            directory.mkdirs();
-        }
+    private synchronized Set<String> getExistingKeys() {
+        if (existingKeys == null) {
+            Set<String> keys = new HashSet<>();
+            if (!directory.isDirectory()) {
+                directory.mkdirs();
+            }
 
-        File[] files = directory.listFiles();
-        if (files != null && files.length > 0) {
-            for (File file: files) {
-                if (file.getName().equals(key)) {
-                    return file;
+            File[] files = directory.listFiles();
+            if (files != null && files.length > 0) {
+                for (File file: files) {
+                    if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                        file.delete();
+                    } else {
+                        keys.add(file.getName());
+                    }
                 }
             }
+            existingKeys = Collections.synchronizedSet(keys);
         }
+        return existingKeys;
+    }
 
-        return new File(directory.getPath(), key);
+    /**
+     * Gets an instance of {@link File} with the given key as its name within the directory
+     * maintained by this instance.
+     *
+     * @param key The name of the file
+     * @return a {@link File} instance for the key, which may not exist yet
+     */
+    @VisibleForTesting
+    File getFile(String key) {
+        getExistingKeys();
+        return new File(directory, key);
+    }
+
+    /**
+     * The serialized data of a snapshot taken by {@link #snapshot(Object)}.
+     */
+    private static class Snapshot {
+
+        final byte[] bytes;
+
+        Snapshot(byte[] bytes) {
+            this.bytes = bytes;
+        }
     }
 }
@@ -16,13 +16,10 @@ import com.clarabridge.core.di.SdkScope;
 @SdkScope
 class FileStorageFactory {
 
-    @SuppressWarnings("FieldCanBeLocal")
-    private static String FILE_STORAGE_NAMESPACE = "-file-storage";
-
     private Context context;
     private Serialization serializer;
     private FileOperators fileOperators;
-    private Map<String, BaseStorage> fileStorageMap;
+    private Map<String, SnapshotStorage> fileStorageMap;
 
     /**
      * Creates an instance of {@link FileStorageFactory}
@@ -50,7 +47,7 @@ class FileStorageFactory {
      * @param key The key for accessing an instance of {@link FileStorage}
      * @return an instance of {@link FileStorage}
      */
-    BaseStorage create(String key) {
+    SnapshotStorage create(String key) {
         if (!fileStorageMap.containsKey(key)) {
             File directory = new File(context.getFilesDir(), key);
             FileStorage fileStorage = new FileStorage(
@@ -58,10 +55,7 @@ class FileStorageFactory {
                     serializer,
                     fileOperators
             );
-            SynchronizedStorage synchronizedStorage = new SynchronizedStorage(
-                    fileStorage,
-                    FILE_STORAGE_NAMESPACE
-            );
+            SynchronizedStorage synchronizedStorage = new SynchronizedStorage(fileStorage);
             fileStorageMap.put(key, synchronizedStorage);
         }
         return fileStorageMap.get(key);
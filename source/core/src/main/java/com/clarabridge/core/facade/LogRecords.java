@@ -0,0 +1,180 @@
+package com.clarabridge.core.facade;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the records of the append-only logs kept by {@link ConversationLogStorage} and
+ * {@link OutboxStorage}.
+ * <p>
+ * A record is a single character for its type, the length of its payload, a length separator,
+ * the payload, then a record separator. Records are either written as text, with the length of
+ * the payload counted in characters, or as bytes, with the length counted in bytes so that the
+ * payload can hold binary data. A record cut short by an interrupted write is detected when it
+ * is read back, so that the complete records before it can be recovered. So is a record whose
+ * length is larger than the log holding it, as left behind by a corrupted length, so that the
+ * payload buffer is never sized from a length that can not be trusted.
+ */
+final class LogRecords {
+
+    private static final char LENGTH_SEPARATOR = ':';
+    private static final char RECORD_SEPARATOR = '\n';
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_LENGTH = Integer.MAX_VALUE / 2;
+
+    private LogRecords() {
+    }
+
+    /**
+     * Appends a record of the given type to the given {@link StringBuilder}.
+     *
+     * @param builder the {@link StringBuilder} to append to
+     * @param type    the type of the record
+     * @param payload the serialized payload of the record
+     */
+    static void appendRecord(StringBuilder builder, char type, String payload) {
+        builder.append(type)
+                .append(payload.length())
+                .append(LENGTH_SEPARATOR)
+                .append(payload)
+                .append(RECORD_SEPARATOR);
+    }
+
+    /**
+     * Appends a record of the given type, with its length counted in bytes, to the given
+     * {@link ByteArrayOutputStream}.
+     *
+     * @param outputStream the {@link ByteArrayOutputStream} to append to
+     * @param type         the type of the record
+     * @param payload      the serialized payload of the record
+     */
+    static void appendRecord(ByteArrayOutputStream outputStream, char type, byte[] payload) {
+        byte[] length = String.valueOf(payload.length).getBytes(UTF_8);
+
+        outputStream.write(type);
+        outputStream.write(length, 0, length.length);
+        outputStream.write(LENGTH_SEPARATOR);
+        outputStream.write(payload, 0, payload.length);
+        outputStream.write(RECORD_SEPARATOR);
+    }
+
+    /**
+     * Computes the fingerprint of a payload, used to tell whether a record needs to be written
+     * again without keeping every payload in memory. It combines the length of the payload with
+     * its CRC32 checksum, so that a changed payload is only mistaken for the previous one if both
+     * have the same length and checksum.
+     *
+     * @param payload the serialized payload of a record
+     * @return the fingerprint of the payload
+     */
+    static long fingerprint(String payload) {
+        return fingerprint(payload.getBytes(UTF_8));
+    }
+
+    /**
+     * Computes the fingerprint of a payload. See {@link #fingerprint(String)}.
+     *
+     * @param payload the serialized payload of a record
+     * @return the fingerprint of the payload
+     */
+    static long fingerprint(byte[] payload) {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        return ((long) payload.length << 32) | checksum.getValue();
+    }
+
+    /**
+     * Reads the payload of a record whose type was just read.
+     *
+     * @param reader    the {@link Reader} positioned after the type of the record
+     * @param maxLength the largest length the payload can have, usually the size of the log
+     * @return the payload, or null if the record is incomplete or malformed
+     * @throws IOException if the log could not be read
+     */
+    @Nullable
+    static String readPayload(Reader reader, long maxLength) throws IOException {
+        int limit = (int) Math.min(maxLength, MAX_LENGTH);
+        int length = 0;
+        int character = reader.read();
+        while (character >= '0' && character <= '9') {
+            if (length > limit / 10) {
+                return null;
+            }
+            length = length * 10 + (character - '0');
+            if (length > limit) {
+                return null;
+            }
+            character = reader.read();
+        }
+
+        if (character != LENGTH_SEPARATOR) {
+            return null;
+        }
+
+        char[] payload = new char[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = reader.read(payload, offset, length - offset);
+            if (read == -1) {
+                return null;
+            }
+            offset += read;
+        }
+
+        if (reader.read() != RECORD_SEPARATOR) {
+            return null;
+        }
+        return new String(payload);
+    }
+
+    /**
+     * Reads the payload of a record written with its length counted in bytes, whose type was
+     * just read.
+     *
+     * @param inputStream the {@link InputStream} positioned after the type of the record
+     * @param maxLength   the largest length the payload can have, usually the size of the log
+     * @return the payload, or null if the record is incomplete or malformed
+     * @throws IOException if the log could not be read
+     */
+    @Nullable
+    static byte[] readPayload(InputStream inputStream, long maxLength) throws IOException {
+        int limit = (int) Math.min(maxLength, MAX_LENGTH);
+        int length = 0;
+        int digit = inputStream.read();
+        while (digit >= '0' && digit <= '9') {
+            if (length > limit / 10) {
+                return null;
+            }
+            length = length * 10 + (digit - '0');
+            if (length > limit) {
+                return null;
+            }
+            digit = inputStream.read();
+        }
+
+        if (digit != LENGTH_SEPARATOR) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(payload, offset, length - offset);
+            if (read == -1) {
+                return null;
+            }
+            offset += read;
+        }
+
+        if (inputStream.read() != RECORD_SEPARATOR) {
+            return null;
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,502 @@
+package com.clarabridge.core.facade;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.clarabridge.core.Logger;
+import com.clarabridge.core.model.MessageDto;
+import com.clarabridge.core.model.OutboxDto;
+import com.clarabridge.core.model.OutboxEntryDto;
+
+/**
+ * Storage implementation for {@link OutboxDto}s backed by one append-only journal file per
+ * conversation.
+ * <p>
+ * A journal is a sequence of records, each holding either an {@link OutboxEntryDto} or the key of
+ * an entry that left the outbox. Replaying the journal from the start and keeping the last record
+ * seen for each entry rebuilds the stored outbox, in the order the entries were first added.
+ * <p>
+ * Like {@link ConversationLogStorage}, an in-memory index of what has already been written lets
+ * {@link #put(String, Object)} append only the entries that were added, changed or removed, so
+ * that the outbox is durable as soon as a message is queued without rewriting it every time. The
+ * journal is compacted once superseded records outnumber the live ones, and deleted once the
+ * outbox is empty.
+ * <p>
+ * All operations on a conversation are synchronized on its index, so this storage does not need
+ * to be decorated with {@link SynchronizedStorage}. The entries are serialized by
+ * {@link #snapshot(Object)}, so that an outbox still being changed by its owner can be written on
+ * another thread.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+class OutboxStorage implements SnapshotStorage {
+
+    private static final String LOG_TAG = "OutboxStorage";
+
+    private static final String JOURNAL_FILE_SUFFIX = ".journal";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final char RECORD_ENTRY = 'E';
+    private static final char RECORD_REMOVAL = 'R';
+
+    private static final int MIN_DEAD_RECORDS_BEFORE_COMPACTION = 16;
+
+    private final File directory;
+    private final Serialization serializer;
+    private final FileOperators fileOperators;
+    private final Map<String, JournalIndex> indexes = new HashMap<>();
+
+    /**
+     * Constructs an instance of {@link OutboxStorage}
+     *
+     * @param directory     The directory {@link File} to be maintained by this instance
+     * @param serializer    An instance of {@link Serialization} used to encode each record
+     * @param fileOperators An instance of {@link FileOperators} for retrieving dependencies used for file I/O
+     */
+    OutboxStorage(
+            File directory,
+            Serialization serializer,
+            FileOperators fileOperators) {
+        this.directory = directory;
+        this.serializer = serializer;
+        this.fileOperators = fileOperators;
+    }
+
+    @Override
+    public void put(String key, @Nullable Object data) {
+        putSnapshot(key, snapshot(data));
+    }
+
+    @Nullable
+    @Override
+    public Object snapshot(@Nullable Object data) {
+        return data instanceof OutboxDto ? new OutboxSnapshot(serializeEntries((OutboxDto) data)) : data;
+    }
+
+    @Override
+    public void putSnapshot(String key, @Nullable Object snapshot) {
+        if (snapshot == null) {
+            remove(key);
+            return;
+        }
+
+        if (!(snapshot instanceof OutboxSnapshot)) {
+            Logger.e(LOG_TAG, "Unable to store %s, only outboxes are supported (%s)",
+                    snapshot.getClass().getSimpleName(), key);
+            return;
+        }
+
+        JournalIndex index = getIndex(key);
+
+        synchronized (index) {
+            try {
+                if (!index.loaded) {
+                    replay(index);
+                }
+                append(index, ((OutboxSnapshot) snapshot).entries);
+
+                if (index.getDeadRecordCount() > Math.max(MIN_DEAD_RECORDS_BEFORE_COMPACTION, index.entries.size())) {
+                    compact(index);
+                }
+            } catch (IOException e) {
+                Logger.e(LOG_TAG, "Unable to write data to journal (%s)", key);
+                index.reset();
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        if (!clazz.isAssignableFrom(OutboxDto.class)) {
+            return null;
+        }
+
+        JournalIndex index = getIndex(key);
+
+        synchronized (index) {
+            try {
+                LinkedHashMap<String, String> payloads = replay(index);
+                if (payloads == null) {
+                    return null;
+                }
+
+                List<OutboxEntryDto> entries = new ArrayList<>();
+                for (String payload : payloads.values()) {
+                    OutboxEntryDto entry = serializer.deserialize(payload, OutboxEntryDto.class);
+                    if (entry != null && entry.getMessage() != null) {
+                        entries.add(entry);
+                    }
+                }
+                return clazz.cast(new OutboxDto(entries));
+            } catch (IOException e) {
+                Logger.e(LOG_TAG, "Unable to read data from journal (%s)", key);
+                index.reset();
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        JournalIndex index = getIndex(key);
+
+        synchronized (index) {
+            index.file.delete();
+            index.reset();
+            index.loaded = true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        List<JournalIndex> existingIndexes;
+        synchronized (indexes) {
+            existingIndexes = new ArrayList<>(indexes.values());
+        }
+
+        for (JournalIndex index : existingIndexes) {
+            synchronized (index) {
+                index.reset();
+            }
+        }
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Gets the {@link JournalIndex} for the given key, creating an unloaded one if none exists yet.
+     *
+     * @param key the key of the conversation
+     * @return the {@link JournalIndex} of the conversation
+     */
+    @NonNull
+    private JournalIndex getIndex(String key) {
+        synchronized (indexes) {
+            JournalIndex index = indexes.get(key);
+            if (index == null) {
+                index = new JournalIndex(new File(directory, key + JOURNAL_FILE_SUFFIX));
+                indexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Appends a removal record for every entry that left the outbox and an entry record for every
+     * entry that was added or changed. If the entries still in the outbox were reordered the
+     * journal can no longer describe the outbox by appending, and it is rewritten instead.
+     *
+     * @param index   the loaded {@link JournalIndex} of the conversation
+     * @param entries the serialized entries of the outbox being stored, by entry key
+     * @throws IOException if the journal could not be written
+     */
+    private void append(JournalIndex index, LinkedHashMap<String, String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            if (index.file.exists()) {
+                index.file.delete();
+            }
+            index.reset();
+            index.loaded = true;
+            return;
+        }
+
+        if (!isAppendOnly(index, entries)) {
+            rewrite(index, entries);
+            return;
+        }
+
+        StringBuilder records = new StringBuilder();
+        int recordCount = 0;
+
+        for (Iterator<String> it = index.entries.keySet().iterator(); it.hasNext(); ) {
+            String loggedKey = it.next();
+            if (!entries.containsKey(loggedKey)) {
+                LogRecords.appendRecord(records, RECORD_REMOVAL, loggedKey);
+                it.remove();
+                recordCount++;
+            }
+        }
+
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            long fingerprint = LogRecords.fingerprint(entry.getValue());
+            Long previousFingerprint = index.entries.get(entry.getKey());
+            if (previousFingerprint == null || previousFingerprint != fingerprint) {
+                LogRecords.appendRecord(records, RECORD_ENTRY, entry.getValue());
+                index.entries.put(entry.getKey(), fingerprint);
+                recordCount++;
+            }
+        }
+
+        if (recordCount == 0) {
+            return;
+        }
+
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+
+        Writer writer = fileOperators.getAppendingWriter(index.file);
+        try {
+            writer.write(records.toString());
+        } finally {
+            writer.close();
+        }
+        index.recordCount += recordCount;
+    }
+
+    /**
+     * Checks that the entries already in the journal that are still in the outbox kept their
+     * order, with any new entries following them.
+     *
+     * @param index   the loaded {@link JournalIndex} of the conversation
+     * @param entries the serialized entries of the outbox being stored, by entry key
+     * @return true if the outbox can be stored by appending to the journal, false otherwise
+     */
+    private boolean isAppendOnly(JournalIndex index, LinkedHashMap<String, String> entries) {
+        if (!index.file.exists()) {
+            return false;
+        }
+
+        Iterator<String> loggedKeys = index.entries.keySet().iterator();
+        boolean newEntrySeen = false;
+
+        for (String key : entries.keySet()) {
+            if (!index.entries.containsKey(key)) {
+                newEntrySeen = true;
+                continue;
+            }
+
+            if (newEntrySeen) {
+                return false;
+            }
+
+            boolean found = false;
+            while (!found && loggedKeys.hasNext()) {
+                found = loggedKeys.next().equals(key);
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the journal with one holding a single record for each entry.
+     *
+     * @param index   the {@link JournalIndex} of the conversation
+     * @param entries the serialized entries, by entry key
+     * @throws IOException if the journal could not be written
+     */
+    private void rewrite(JournalIndex index, LinkedHashMap<String, String> entries) throws IOException {
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(directory, index.file.getName() + TEMP_FILE_SUFFIX);
+        Writer writer = fileOperators.getBufferedWriter(tempFile);
+        try {
+            StringBuilder record = new StringBuilder();
+            for (String entry : entries.values()) {
+                record.setLength(0);
+                LogRecords.appendRecord(record, RECORD_ENTRY, entry);
+                writer.write(record.toString());
+            }
+        } finally {
+            writer.close();
+        }
+
+        if (!tempFile.renameTo(index.file)) {
+            tempFile.delete();
+            throw new IOException("Unable to replace " + index.file.getName());
+        }
+
+        index.entries.clear();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            index.entries.put(entry.getKey(), LogRecords.fingerprint(entry.getValue()));
+        }
+        index.recordCount = entries.size();
+        index.loaded = true;
+    }
+
+    /**
+     * Reads the journal from the start, rebuilding the {@link JournalIndex} as it goes. If the
+     * journal ends with an incomplete record, left behind by a write that was interrupted, it is
+     * rewritten from the complete records so that later appends are not lost behind it.
+     *
+     * @param index the {@link JournalIndex} of the conversation
+     * @return the serialized entries of the outbox by entry key, or null if nothing was stored
+     * @throws IOException if the journal could not be read
+     */
+    @Nullable
+    private LinkedHashMap<String, String> replay(JournalIndex index) throws IOException {
+        index.reset();
+        index.loaded = true;
+
+        if (!index.file.exists()) {
+            return null;
+        }
+
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        boolean complete = true;
+        int recordCount = 0;
+        long fileLength = index.file.length();
+
+        Reader reader = fileOperators.getBufferedReader(index.file);
+        try {
+            int type;
+            while ((type = reader.read()) != -1) {
+                String payload = LogRecords.readPayload(reader, fileLength);
+
+                if (payload == null) {
+                    complete = false;
+                    break;
+                }
+
+                if (type == RECORD_ENTRY) {
+                    OutboxEntryDto entry = serializer.deserialize(payload, OutboxEntryDto.class);
+                    if (entry != null && entry.getMessage() != null) {
+                        entries.put(getEntryKey(entry.getMessage(), entries.size()), payload);
+                    }
+                } else if (type == RECORD_REMOVAL) {
+                    entries.remove(payload);
+                } else {
+                    complete = false;
+                    break;
+                }
+                recordCount++;
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (!complete) {
+            Logger.w(LOG_TAG, "Recovering incomplete journal (%s)", index.file.getName());
+            rewrite(index, entries);
+            return entries;
+        }
+
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            index.entries.put(entry.getKey(), LogRecords.fingerprint(entry.getValue()));
+        }
+        index.recordCount = recordCount;
+        return entries;
+    }
+
+    /**
+     * Rewrites the journal of the given {@link JournalIndex} keeping only the last record of each
+     * entry still in the outbox.
+     *
+     * @param index the {@link JournalIndex} of the conversation to be compacted
+     * @throws IOException if the journal could not be read or written
+     */
+    private void compact(JournalIndex index) throws IOException {
+        LinkedHashMap<String, String> entries = replay(index);
+
+        if (entries == null || index.getDeadRecordCount() == 0) {
+            return;
+        }
+
+        rewrite(index, entries);
+    }
+
+    /**
+     * Serializes every entry of the given {@link OutboxDto}, preserving their order.
+     *
+     * @param outbox the {@link OutboxDto} whose entries should be serialized
+     * @return the serialized entries, by entry key
+     */
+    @NonNull
+    private LinkedHashMap<String, String> serializeEntries(OutboxDto outbox) {
+        LinkedHashMap<String, String> serializedEntries = new LinkedHashMap<>();
+
+        for (OutboxEntryDto entry : outbox.getEntries()) {
+            if (entry.getMessage() != null) {
+                serializedEntries.put(getEntryKey(entry.getMessage(), serializedEntries.size()),
+                        serializer.serialize(entry));
+            }
+        }
+        return serializedEntries;
+    }
+
+    /**
+     * Gets the key identifying an entry within its journal, from the creation time of its message
+     * which is assigned locally before the message is sent.
+     *
+     * @param message  the {@link MessageDto} of the entry
+     * @param position the position of the entry in the outbox, used when the message has no
+     *                 identifier
+     * @return the key of the entry
+     */
+    @NonNull
+    private String getEntryKey(MessageDto message, int position) {
+        if (message.getCreated() != null) {
+            return "c" + message.getCreated();
+        }
+        if (message.getId() != null) {
+            return "i" + message.getId();
+        }
+        return "p" + position;
+    }
+
+    /**
+     * The serialized entries of an outbox, taken by {@link #snapshot(Object)}.
+     */
+    private static class OutboxSnapshot {
+
+        final LinkedHashMap<String, String> entries;
+
+        OutboxSnapshot(LinkedHashMap<String, String> entries) {
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * The in-memory index of an outbox journal, describing what has been written to it.
+     */
+    private static class JournalIndex {
+
+        final File file;
+        final LinkedHashMap<String, Long> entries = new LinkedHashMap<>();
+        int recordCount;
+        boolean loaded;
+
+        JournalIndex(File file) {
+            this.file = file;
+        }
+
+        /**
+         * @return the number of records in the journal that have been superseded by a later record
+         */
+        int getDeadRecordCount() {
+            return recordCount - entries.size();
+        }
+
+        /**
+         * Forgets everything known about the journal so that it is replayed on next access.
+         */
+        void reset() {
+            entries.clear();
+            recordCount = 0;
+            loaded = false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.clarabridge.core.facade;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import com.clarabridge.core.di.SdkScope;
+
+/**
+ * Factory for creating instances of {@link OutboxStorage}
+ */
+@SdkScope
+class OutboxStorageFactory {
+
+    @SuppressWarnings("FieldCanBeLocal")
+    private static String OUTBOX_NAMESPACE = "-outbox";
+
+    private Context context;
+    private Serialization serializer;
+    private FileOperators fileOperators;
+    private Map<String, SnapshotStorage> outboxStorageMap;
+
+    /**
+     * Creates an instance of {@link OutboxStorageFactory}
+     *
+     * @param context       an instance of {@link Context} for retrieving the app internal files directory
+     * @param serializer    an instance of {@link Serialization}
+     *                      for serialising objects
+     * @param fileOperators an instance of {@link FileOperators}
+     */
+    @Inject
+    OutboxStorageFactory(
+            Context context,
+            Serialization serializer,
+            FileOperators fileOperators) {
+        this.context = context;
+        this.serializer = serializer;
+        this.fileOperators = fileOperators;
+        this.outboxStorageMap = new HashMap<>();
+    }
+
+    /**
+     * Retrieves a cached instance of {@link OutboxStorage} if one exists for the given key,
+     * or creates and caches a new instance.
+     *
+     * @param key The key for accessing an instance of {@link OutboxStorage}
+     * @return an instance of {@link OutboxStorage}
+     */
+    synchronized SnapshotStorage create(String key) {
+        if (!outboxStorageMap.containsKey(key)) {
+            File directory = new File(context.getFilesDir(), key + OUTBOX_NAMESPACE);
+            OutboxStorage outboxStorage = new OutboxStorage(
+                    directory,
+                    serializer,
+                    fileOperators
+            );
+            outboxStorageMap.put(key, outboxStorage);
+        }
+        return outboxStorageMap.get(key);
+    }
+}
@@ -4,26 +4,42 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.clarabridge.core.model.ConversationDto;
-import com.clarabridge.core.utils.StringUtils;
 
 /**
  * Simple in-memory caching layer for the {@link PersistenceFacade} to help alleviate the amount
  * of calls we would be making to read from storage.
+ * <p>
+ * Conversations are indexed by their ID and kept ordered by their last updated time, most recent
+ * first, so that adding, replacing or removing a conversation does not need to re-sort or copy
+ * the whole list. The position of a conversation is taken from its last updated time when it is
+ * added to the cache; it is not affected by later changes made to the same instance.
+ * <p>
+ * The cache also describes the pages of the stored conversation list that have been loaded or
+ * written: the IDs each page holds and the conversations saved since it was written. This lets
+ * only the pages whose contents changed be written again, while the pages that were never loaded
+ * are left on disk as they are.
  */
 class PersistenceCache {
 
-    private Set<ConversationDto> conversationsLinkedHashSet;
+    private final Map<String, SortKey> sortKeysById;
+    private final TreeMap<SortKey, ConversationDto> conversationsByRecency;
     private AtomicBoolean hasMoreConversations = new AtomicBoolean(true);
+    private final List<List<String>> storedPageIds = new ArrayList<>();
+    private final Set<String> changedConversationIds = new HashSet<>();
+    @Nullable
+    private Boolean storedHasMore;
+    private int storedPageTotal = -1;
+    private boolean allStoredPagesLoaded;
 
     /**
      * @return a new empty instance of {@link PersistenceCache}
@@ -36,15 +52,16 @@ class PersistenceCache {
      * Create a new instance of the {@link PersistenceCache} which would be cold and hold no values
      */
     PersistenceCache() {
-        conversationsLinkedHashSet = new LinkedHashSet<>();
+        sortKeysById = new HashMap<>();
+        conversationsByRecency = new TreeMap<>();
     }
 
     /**
      * @return a copy of the conversations list, or null if nothing was cached
      */
     @NonNull
-    List<ConversationDto> getConversationsList() {
-        return new ArrayList<>(conversationsLinkedHashSet);
+    synchronized List<ConversationDto> getConversationsList() {
+        return new ArrayList<>(conversationsByRecency.values());
     }
 
     /**
@@ -52,30 +69,52 @@ class PersistenceCache {
      * @return a copy of the conversations list by given offset, or null if nothing was cached
      */
     @NonNull
-    List<ConversationDto> getConversationsList(int toIndex) {
-        if (conversationsLinkedHashSet != null && !conversationsLinkedHashSet.isEmpty()) {
-            if (conversationsLinkedHashSet.size() >= toIndex) {
-                return new LinkedList<>(conversationsLinkedHashSet).subList(Math.max(toIndex - 10, 0), toIndex);
-            } else {
-                return new ArrayList<>(conversationsLinkedHashSet);
+    synchronized List<ConversationDto> getConversationsList(int toIndex) {
+        if (conversationsByRecency.size() < toIndex) {
+            return getConversationsList();
+        }
+
+        int fromIndex = Math.max(toIndex - 10, 0);
+        List<ConversationDto> page = new ArrayList<>(toIndex - fromIndex);
+        Iterator<ConversationDto> iterator = conversationsByRecency.values().iterator();
+        for (int index = 0; index < toIndex; index++) {
+            ConversationDto conversation = iterator.next();
+            if (index >= fromIndex) {
+                page.add(conversation);
             }
-        } else {
-            return new ArrayList<>();
         }
+        return page;
+    }
+
+    /**
+     * @return true if no conversations are cached
+     */
+    synchronized boolean isEmpty() {
+        return conversationsByRecency.isEmpty();
     }
 
     /**
-     * Saves a new conversations list to the cache
+     * @param conversationId the ID of the conversation
+     * @return the cached conversation with the given ID, or null if it is not cached
+     */
+    @Nullable
+    synchronized ConversationDto getConversation(@Nullable String conversationId) {
+        SortKey sortKey = sortKeysById.get(conversationId);
+        return sortKey != null ? conversationsByRecency.get(sortKey) : null;
+    }
+
+    /**
+     * Saves a new conversations list to the cache, replacing any cached conversation with the
+     * same ID
      *
      * @param conversationsList the new list to be cached
      */
-    void saveConversationsList(@Nullable List<ConversationDto> conversationsList) {
-        if (conversationsList != null && !conversationsList.isEmpty()) {
-            conversationsLinkedHashSet.addAll(conversationsList);
-            TreeSet<ConversationDto> conversationsTreeSet = new TreeSet<>(Collections.reverseOrder());
-            conversationsTreeSet.addAll(conversationsLinkedHashSet);
-            conversationsLinkedHashSet.clear();
-            conversationsLinkedHashSet.addAll(conversationsTreeSet);
+    synchronized void saveConversationsList(@Nullable List<ConversationDto> conversationsList) {
+        if (conversationsList != null) {
+            for (ConversationDto conversation : conversationsList) {
+                put(conversation);
+                changedConversationIds.add(conversation.getId());
+            }
         }
     }
 
@@ -84,29 +123,31 @@ class PersistenceCache {
      *
      * @param conversation the conversation object that we need to delete.
      */
-    void removeConversationFromConversationList(@NonNull ConversationDto conversation) {
-        List<ConversationDto> cachedList = new ArrayList<>(conversationsLinkedHashSet);
-        for (Iterator<ConversationDto> iterator = cachedList.iterator(); iterator.hasNext();) {
-            ConversationDto conversationDto = iterator.next();
-            if (StringUtils.isEqual(conversationDto.getId(), conversation.getId())) {
-                iterator.remove();
-            }
+    synchronized void removeConversationFromConversationList(@NonNull ConversationDto conversation) {
+        SortKey sortKey = sortKeysById.remove(conversation.getId());
+        if (sortKey != null) {
+            conversationsByRecency.remove(sortKey);
         }
-        conversationsLinkedHashSet.clear();
-        conversationsLinkedHashSet.addAll(cachedList);
     }
 
     /**
-     * Adds a conversation from the cached conversation list
+     * Adds a conversation to the cached conversation list, replacing any cached conversation
+     * with the same ID
      *
      * @param conversation the conversation object that we need to add.
      */
-    void addConversationToConversationList(@NonNull ConversationDto conversation) {
-        conversationsLinkedHashSet.add(conversation);
-        TreeSet<ConversationDto> conversationsTreeSet = new TreeSet<>(Collections.reverseOrder());
-        conversationsTreeSet.addAll(conversationsLinkedHashSet);
-        conversationsLinkedHashSet.clear();
-        conversationsLinkedHashSet.addAll(conversationsTreeSet);
+    synchronized void addConversationToConversationList(@NonNull ConversationDto conversation) {
+        put(conversation);
+        changedConversationIds.add(conversation.getId());
+    }
+
+    /**
+     * @return the last updated time of the least recently updated cached conversation, or null if
+     * nothing is cached or it has no last updated time
+     */
+    @Nullable
+    synchronized Double getOldestLastUpdatedAt() {
+        return conversationsByRecency.isEmpty() ? null : conversationsByRecency.lastKey().lastUpdatedAt;
     }
 
     /**
@@ -126,10 +167,220 @@ class PersistenceCache {
     }
 
     /**
-     * Clear the conversation list that is cached on-memory
+     * Clear the conversation list that is cached on-memory. Pages of the stored conversation list
+     * will be loaded again.
+     */
+    synchronized void clearConversationList() {
+        sortKeysById.clear();
+        conversationsByRecency.clear();
+        storedPageIds.clear();
+        changedConversationIds.clear();
+        storedHasMore = null;
+        allStoredPagesLoaded = false;
+    }
+
+    /**
+     * @return the number of pages of the stored conversation list that have been loaded into this
+     * cache, or written from it
+     */
+    synchronized int getStoredPageCount() {
+        return storedPageIds.size();
+    }
+
+    /**
+     * @return the number of pages of the stored conversation list that exist on disk, including
+     * those that have not been loaded, or -1 if it is not known yet
+     */
+    synchronized int getStoredPageTotal() {
+        return storedPageTotal;
+    }
+
+    /**
+     * @param storedPageTotal the number of pages of the stored conversation list that exist on disk
+     */
+    synchronized void setStoredPageTotal(int storedPageTotal) {
+        this.storedPageTotal = storedPageTotal;
+    }
+
+    /**
+     * @return true if every page of the stored conversation list has been loaded into this cache
+     */
+    synchronized boolean isAllStoredPagesLoaded() {
+        return allStoredPagesLoaded;
+    }
+
+    /**
+     * Records that the next page of the stored conversation list was loaded into this cache, and
+     * caches the conversations of the page that were not cached already.
+     *
+     * @param storedConversations the conversations held by the page
+     * @param newConversations    the conversations of the page that were not cached already
+     * @param storedHasMore       whether more conversations could be fetched when the page was
+     *                            written, or null if the page does not record it
+     */
+    synchronized void onStoredPageLoaded(
+            @NonNull List<ConversationDto> storedConversations,
+            @NonNull List<ConversationDto> newConversations,
+            @Nullable Boolean storedHasMore) {
+        if (storedPageIds.isEmpty()) {
+            this.storedHasMore = storedHasMore;
+        }
+        storedPageIds.add(getIds(storedConversations));
+
+        for (ConversationDto conversation : newConversations) {
+            put(conversation);
+        }
+    }
+
+    /**
+     * Records that there are no further pages of the stored conversation list to be loaded.
+     */
+    synchronized void onAllStoredPagesLoaded() {
+        allStoredPagesLoaded = true;
+    }
+
+    /**
+     * Splits the cached conversation list into the pages it should be stored as. Once every stored
+     * page has been loaded the list is split into pages of the given size. Otherwise it is split
+     * over the pages loaded so far, the last of which holds any conversations beyond them, so that
+     * the pages that were not loaded keep their place on disk.
+     *
+     * @param pageSize the number of conversations in a page
+     * @return the pages of the conversation list
+     */
+    @NonNull
+    synchronized List<List<ConversationDto>> getStoredPages(int pageSize) {
+        List<ConversationDto> conversations = new ArrayList<>(conversationsByRecency.values());
+        int count = conversations.size();
+        int pageCount = allStoredPagesLoaded
+                ? (count + pageSize - 1) / pageSize
+                : Math.max(storedPageIds.size(), 1);
+
+        List<List<ConversationDto>> pages = new ArrayList<>(pageCount);
+        for (int page = 0; page < pageCount; page++) {
+            int fromIndex = Math.min(page * pageSize, count);
+            int toIndex = page == pageCount - 1 ? count : Math.min(fromIndex + pageSize, count);
+            pages.add(new ArrayList<>(conversations.subList(fromIndex, toIndex)));
+        }
+        return pages;
+    }
+
+    /**
+     * Checks if a page of the stored conversation list needs to be written, because it holds
+     * different conversations than when it was last loaded or written, or one of them was saved
+     * since then.
+     *
+     * @param page          the index of the page
+     * @param conversations the conversations the page should hold
+     * @param hasMore       whether more conversations can be fetched, which the first page records
+     * @return true if the page needs to be written, false otherwise
+     */
+    synchronized boolean isStoredPageChanged(int page, @NonNull List<ConversationDto> conversations, boolean hasMore) {
+        if (page >= storedPageIds.size()) {
+            return true;
+        }
+
+        if (page == 0 && (storedHasMore == null || storedHasMore != hasMore)) {
+            return true;
+        }
+
+        List<String> storedIds = storedPageIds.get(page);
+        if (storedIds.size() != conversations.size()) {
+            return true;
+        }
+
+        for (int i = 0; i < conversations.size(); i++) {
+            String id = conversations.get(i).getId();
+            if (changedConversationIds.contains(id) || !storedIds.get(i).equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that a page of the stored conversation list was written.
+     *
+     * @param page          the index of the page
+     * @param conversations the conversations that were written
+     * @param hasMore       whether more conversations can be fetched, which the first page records
      */
-    void clearConversationList() {
-        conversationsLinkedHashSet.clear();
+    synchronized void onStoredPageWritten(int page, @NonNull List<ConversationDto> conversations, boolean hasMore) {
+        if (page == 0) {
+            storedHasMore = hasMore;
+        }
+
+        if (page < storedPageIds.size()) {
+            storedPageIds.set(page, getIds(conversations));
+        } else {
+            storedPageIds.add(getIds(conversations));
+        }
     }
 
+    /**
+     * Records that the cached conversation list was written as the given number of pages. Any
+     * page beyond them is no longer stored.
+     *
+     * @param pageCount the number of pages the list was written as
+     */
+    synchronized void onStoredPagesWritten(int pageCount) {
+        while (storedPageIds.size() > pageCount) {
+            storedPageIds.remove(storedPageIds.size() - 1);
+        }
+        changedConversationIds.clear();
+    }
+
+    @NonNull
+    private static List<String> getIds(@NonNull List<ConversationDto> conversations) {
+        List<String> ids = new ArrayList<>(conversations.size());
+        for (ConversationDto conversation : conversations) {
+            ids.add(conversation.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Adds or replaces the given conversation in both the ID index and the ordered list.
+     *
+     * @param conversation the conversation to be cached
+     */
+    private void put(ConversationDto conversation) {
+        SortKey sortKey = new SortKey(conversation.getLastUpdatedAt(), conversation.getId());
+        SortKey previousSortKey = sortKeysById.put(conversation.getId(), sortKey);
+        if (previousSortKey != null) {
+            conversationsByRecency.remove(previousSortKey);
+        }
+        conversationsByRecency.put(sortKey, conversation);
+    }
+
+    /**
+     * The position of a conversation in the cache, ordering the most recently updated
+     * conversations first and conversations without a last updated time last. Conversations
+     * updated at the same time are ordered by their ID.
+     */
+    private static final class SortKey implements Comparable<SortKey> {
+
+        @Nullable
+        private final Double lastUpdatedAt;
+        @Nullable
+        private final String id;
+
+        SortKey(@Nullable Double lastUpdatedAt, @Nullable String id) {
+            this.lastUpdatedAt = lastUpdatedAt;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(@NonNull SortKey other) {
+            int result = compare(other.lastUpdatedAt, lastUpdatedAt);
+            return result != 0 ? result : compare(id, other.id);
+        }
+
+        private static <T extends Comparable<T>> int compare(@Nullable T lhs, @Nullable T rhs) {
+            if (lhs == null) {
+                return rhs == null ? 0 : -1;
+            }
+            return rhs == null ? 1 : lhs.compareTo(rhs);
+        }
+    }
 }
@@ -6,15 +6,26 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Inject;
 
+import com.clarabridge.core.Logger;
 import com.clarabridge.core.di.SdkScope;
 import com.clarabridge.core.model.AppUserDto;
 import com.clarabridge.core.model.ConversationDto;
 import com.clarabridge.core.model.ConversationsListResponseDto;
+import com.clarabridge.core.model.ConversationsPaginationResponseDto;
+import com.clarabridge.core.model.OutboxDto;
+import com.clarabridge.core.model.OutboxEntryDto;
 import com.clarabridge.core.model.RetryConfigurationDto;
 import com.clarabridge.core.model.UserSettingsDto;
 import com.clarabridge.core.utils.StringUtils;
@@ -28,8 +39,23 @@ public class PersistenceFacade {
     private enum Type {
         SHARED_PREFERENCES,
         FILE,
+        CONVERSATION_LOG,
+        OUTBOX,
     }
 
+    /**
+     * Callback invoked on the outbox I/O thread once an outbox was read.
+     */
+    public interface OutboxCallback {
+
+        /**
+         * @param entries the stored outbox entries, or an empty list if there are none
+         */
+        void onOutboxRead(@NonNull List<OutboxEntryDto> entries);
+    }
+
+    private static final String LOG_TAG = "PersistenceFacade";
+
     private static final String RETRY_CONFIGURATION_KEY = "retryConfiguration";
     private static final String USER_SETTINGS_KEY = "userSettings";
     private static final String APP_USER_LOCAL_KEY = "appUserLocal";
@@ -38,13 +64,25 @@ public class PersistenceFacade {
     private static final String SESSION_TOKEN_KEY = "sessionToken";
     private static final String APP_USER_ID_KEY = "appUserId";
     private static final String CONVERSATIONS_LIST_KEY = "conversationsList";
+    private static final String CONVERSATIONS_LIST_PAGE_COUNT_KEY = "conversationsListPageCount";
+    private static final int CONVERSATIONS_LIST_PAGE_SIZE = 10;
 
     private static final String TEMPORARY_STORAGE_NAME = "temp_storage";
 
+    private static final long WRITE_BEHIND_WINDOW_MILLIS = 250L;
+
     private final SharedPreferencesStorageFactory sharedPreferencesStorageFactory;
     private final FileStorageFactory fileStorageFactory;
+    private final ConversationLogStorageFactory conversationLogStorageFactory;
+    private final OutboxStorageFactory outboxStorageFactory;
+
+    private final Map<BaseStorage, WriteBehindStorage> writeBehindStorageMap = new HashMap<>();
 
     private PersistenceCache cache;
+    @Nullable
+    private ScheduledExecutorService writeBehindExecutor;
+    @Nullable
+    private ExecutorService outboxExecutor;
 
     @Nullable
     private String integrationId;
@@ -58,19 +96,27 @@ public class PersistenceFacade {
      *
      * @param sharedPreferencesStorageFactory an instance of {@link SharedPreferencesStorageFactory}
      * @param fileStorageFactory              an instance of {@link FileStorageFactory}
+     * @param conversationLogStorageFactory   an instance of {@link ConversationLogStorageFactory}
+     * @param outboxStorageFactory            an instance of {@link OutboxStorageFactory}
      */
     @Inject
     public PersistenceFacade(
             final SharedPreferencesStorageFactory sharedPreferencesStorageFactory,
-            final FileStorageFactory fileStorageFactory) {
+            final FileStorageFactory fileStorageFactory,
+            final ConversationLogStorageFactory conversationLogStorageFactory,
+            final OutboxStorageFactory outboxStorageFactory) {
         this.sharedPreferencesStorageFactory = sharedPreferencesStorageFactory;
         this.fileStorageFactory = fileStorageFactory;
+        this.conversationLogStorageFactory = conversationLogStorageFactory;
+        this.outboxStorageFactory = outboxStorageFactory;
         this.cache = PersistenceCache.create();
     }
 
     /**
      * Constructs an instance of {@link PersistenceFacade}. This constructor should only be used for
-     * testing. See {@link #PersistenceFacade(SharedPreferencesStorageFactory, FileStorageFactory)}
+     * testing. See
+     * {@link #PersistenceFacade(SharedPreferencesStorageFactory, FileStorageFactory,
+     * ConversationLogStorageFactory, OutboxStorageFactory)}
      *
      * @param context       an instance of {@link Context}
      * @param serialization an instance of {@link Serialization}
@@ -81,6 +127,9 @@ public class PersistenceFacade {
             final Serialization serialization) {
         this.sharedPreferencesStorageFactory = new SharedPreferencesStorageFactory(context, serialization);
         this.fileStorageFactory = new FileStorageFactory(context, serialization, new FileOperators());
+        this.conversationLogStorageFactory =
+                new ConversationLogStorageFactory(context, serialization, new FileOperators());
+        this.outboxStorageFactory = new OutboxStorageFactory(context, serialization, new FileOperators());
         this.cache = PersistenceCache.create();
     }
 
@@ -142,6 +191,38 @@ public class PersistenceFacade {
     }
     //endregion
 
+    // region Write-behind
+
+    /**
+     * Enables or disables deferring file writes to a dedicated I/O thread. While enabled, repeated
+     * writes of the same item within a short window are coalesced so only the last one is written.
+     * Disabling performs any pending writes before returning.
+     *
+     * @param enabled true if file writes should be deferred, false if they should be performed
+     *                on the calling thread
+     */
+    public synchronized void setWriteBehindEnabled(boolean enabled) {
+        if (enabled && writeBehindExecutor == null) {
+            writeBehindExecutor = Executors.newSingleThreadScheduledExecutor();
+        } else if (!enabled && writeBehindExecutor != null) {
+            flush();
+            writeBehindExecutor.shutdown();
+            writeBehindExecutor = null;
+            writeBehindStorageMap.clear();
+        }
+    }
+
+    /**
+     * Performs any writes that were deferred while write-behind is enabled on the calling thread.
+     * See {@link #setWriteBehindEnabled(boolean)}.
+     */
+    public synchronized void flush() {
+        for (WriteBehindStorage storage : writeBehindStorageMap.values()) {
+            storage.flush();
+        }
+    }
+    // endregion
+
     // region Unscoped storage
     public RetryConfigurationDto getRetryConfiguration() {
         return getPersistence(StorageScope.UNSCOPED, Type.FILE)
@@ -232,16 +313,17 @@ public class PersistenceFacade {
     //region User Scope storage
 
     /**
+     * Gets the cached list of conversations. The first page of the stored list is loaded if no page
+     * has been loaded yet; further pages are loaded by {@link #loadNextConversationsListPage()}.
+     *
      * @return the stored list of conversations or an empty list if the result was null
      */
     @NonNull
     public List<ConversationDto> getConversationsList() {
-        List<ConversationDto> conversationsList = cache.getConversationsList();
-        if (conversationsList.isEmpty()) {
-            conversationsList = getConversationListFromFileStorage();
-            cache.saveConversationsList(conversationsList);
+        if (cache.getStoredPageCount() == 0 && !cache.isAllStoredPagesLoaded()) {
+            loadNextConversationsListPage();
         }
-        return conversationsList;
+        return cache.getConversationsList();
     }
 
     /**
@@ -254,18 +336,55 @@ public class PersistenceFacade {
         return conversationsList.isEmpty() ? new ArrayList<ConversationDto>() : conversationsList;
     }
 
+    /**
+     * Loads the next page of the stored conversation list into the cache. Stored conversations that
+     * are already cached are skipped, since the cached copy is at least as recent.
+     *
+     * @return the conversations that were added to the cache, or an empty list if every page of
+     * the stored list has already been loaded
+     */
+    @NonNull
+    public synchronized List<ConversationDto> loadNextConversationsListPage() {
+        PersistenceCache cache = this.cache;
+        List<ConversationDto> loadedConversations = new ArrayList<>();
+
+        while (loadedConversations.isEmpty() && !cache.isAllStoredPagesLoaded()) {
+            int page = cache.getStoredPageCount();
+            ConversationsListResponseDto storedPage = getPersistence(StorageScope.USER_ID, Type.FILE)
+                    .get(getConversationsListPageKey(page), ConversationsListResponseDto.class);
+
+            if (storedPage == null || storedPage.getConversations() == null) {
+                cache.onAllStoredPagesLoaded();
+                break;
+            }
+
+            Boolean storedHasMore = storedPage.getConversationsPagination() != null
+                    ? storedPage.getConversationsPagination().isHasMore()
+                    : null;
+
+            if (page == 0 && cache.isEmpty() && storedHasMore != null) {
+                cache.setHasMoreConversations(storedHasMore);
+            }
+
+            for (ConversationDto conversation : storedPage.getConversations()) {
+                if (cache.getConversation(conversation.getId()) == null) {
+                    loadedConversations.add(conversation);
+                }
+            }
+            cache.onStoredPageLoaded(storedPage.getConversations(), loadedConversations, storedHasMore);
+        }
+
+        return loadedConversations;
+    }
+
     /**
      * Save the given conversation list in storage
      *
      * @param conversationsList the list of {@link ConversationDto} to be stored
      */
     public void saveConversationsList(final List<ConversationDto> conversationsList) {
-        // Only the first most updated 10 conversations will be stored in the local file storage and all the list
-        // will be cached on memory.
         cache.saveConversationsList(conversationsList);
-        ConversationsListResponseDto persistedList =
-                new ConversationsListResponseDto(cache.getConversationsList(10));
-        getPersistence(StorageScope.USER_ID, Type.FILE).put(CONVERSATIONS_LIST_KEY, persistedList);
+        persistConversationsList();
     }
 
     /**
@@ -274,19 +393,72 @@ public class PersistenceFacade {
      * @param conversationId the conversation ID.
      */
     public void removeConversationFromConversationList(String conversationId) {
-        if (!cache.getConversationsList().isEmpty()) {
-            List<ConversationDto> cacheConversationList = cache.getConversationsList();
-            for (ConversationDto conversation : cacheConversationList) {
-                if (StringUtils.isEqual(conversation.getId(), conversationId)) {
-                    cache.removeConversationFromConversationList(conversation);
-
-                    ConversationsListResponseDto persistedList =
-                            new ConversationsListResponseDto(cache.getConversationsList());
-                    getPersistence(StorageScope.USER_ID, Type.FILE).put(CONVERSATIONS_LIST_KEY, persistedList);
+        ConversationDto conversation = cache.getConversation(conversationId);
+        if (conversation != null) {
+            cache.removeConversationFromConversationList(conversation);
+            persistConversationsList();
+        }
+    }
+
+    /**
+     * Checks if the given conversation is in the conversation list with the same last updated time,
+     * meaning that it has not changed since the list was last saved.
+     *
+     * @param conversation the {@link ConversationDto} to be checked
+     * @return true if the listed conversation has the same last updated time, false otherwise
+     */
+    public boolean isConversationListed(@NonNull final ConversationDto conversation) {
+        ConversationDto listedConversation = cache.getConversation(conversation.getId());
+        return listedConversation != null
+                && listedConversation.getLastUpdatedAt() != null
+                && listedConversation.getLastUpdatedAt().equals(conversation.getLastUpdatedAt());
+    }
+
+    /**
+     * Removes listed conversations that are not part of the given IDs, for when the conversations
+     * updated since a given time have been fetched again. Any conversation updated since then that
+     * was not fetched no longer belongs to the user.
+     * <p>
+     * Stored pages are only loaded while they can hold conversations updated since that time. If
+     * the whole list was fetched, every conversation that still belongs to the user is cached, so
+     * the pages that were not loaded are dropped instead.
+     *
+     * @param conversationIds the IDs of the conversations that were fetched
+     * @param updatedSince    the last updated time of the oldest conversation that was fetched, or
+     *                        null if the whole list was fetched
+     */
+    public void removeConversationsNotListedSince(
+            @NonNull final Set<String> conversationIds,
+            @Nullable final Double updatedSince) {
+        boolean removed = false;
+
+        if (updatedSince == null) {
+            removed = !cache.isAllStoredPagesLoaded();
+            cache.onAllStoredPagesLoaded();
+        } else {
+            while (!cache.isAllStoredPagesLoaded()) {
+                Double oldestLastUpdatedAt = cache.getOldestLastUpdatedAt();
+                if (oldestLastUpdatedAt == null || oldestLastUpdatedAt < updatedSince) {
                     break;
                 }
+                loadNextConversationsListPage();
             }
         }
+
+        for (ConversationDto conversation : cache.getConversationsList()) {
+            Double lastUpdatedAt = conversation.getLastUpdatedAt();
+            boolean isUpdatedSince = updatedSince == null
+                    || (lastUpdatedAt != null && lastUpdatedAt >= updatedSince);
+
+            if (isUpdatedSince && !conversationIds.contains(conversation.getId())) {
+                cache.removeConversationFromConversationList(conversation);
+                removed = true;
+            }
+        }
+
+        if (removed) {
+            persistConversationsList();
+        }
     }
 
     /**
@@ -301,7 +473,10 @@ public class PersistenceFacade {
             return null;
         }
 
-        return getPersistence(StorageScope.USER_ID, Type.FILE).get(conversationId, ConversationDto.class);
+        ConversationDto conversation = getPersistence(StorageScope.USER_ID, Type.CONVERSATION_LOG)
+                .get(conversationId, ConversationDto.class);
+
+        return conversation != null ? conversation : migrateConversationToLog(conversationId);
     }
 
     /**
@@ -311,7 +486,7 @@ public class PersistenceFacade {
      * @param entity         the {@link ConversationDto} to be stored
      */
     public void saveConversationById(final String conversationId, final ConversationDto entity) {
-        getPersistence(StorageScope.USER_ID, Type.FILE).put(conversationId, entity);
+        getPersistence(StorageScope.USER_ID, Type.CONVERSATION_LOG).put(conversationId, entity);
     }
 
     /**
@@ -321,16 +496,11 @@ public class PersistenceFacade {
      * @param entity         the {@link ConversationDto} to be stored
      */
     public void updateConversation(final String conversationId, final ConversationDto entity) {
-        if (!cache.getConversationsList().isEmpty()) {
-            List<ConversationDto> cacheConversationList = cache.getConversationsList();
-            for (ConversationDto conversation : cacheConversationList) {
-                if (StringUtils.isEqual(conversation.getId(), conversationId)) {
-                    cache.removeConversationFromConversationList(conversation);
-                    cache.addConversationToConversationList(entity);
-                    saveConversationById(conversationId, entity);
-                    break;
-                }
-            }
+        ConversationDto conversation = cache.getConversation(conversationId);
+        if (conversation != null) {
+            cache.removeConversationFromConversationList(conversation);
+            cache.addConversationToConversationList(entity);
+            saveConversationById(conversationId, entity);
         }
     }
 
@@ -341,24 +511,77 @@ public class PersistenceFacade {
      * @param entity         the {@link ConversationDto} to be stored
      */
     public void addConversation(final String conversationId, final ConversationDto entity) {
-        boolean updated = false;
-        if (!cache.getConversationsList().isEmpty()) {
-            List<ConversationDto> cacheConversationList = cache.getConversationsList();
-            for (ConversationDto conversation : cacheConversationList) {
-                if (StringUtils.isEqual(conversation.getId(), conversationId)) {
-                    cache.removeConversationFromConversationList(conversation);
-                    cache.addConversationToConversationList(entity);
-                    saveConversationById(conversationId, entity);
-                    updated = true;
-                    break;
-                }
+        if (!cache.isEmpty()) {
+            ConversationDto conversation = cache.getConversation(conversationId);
+            if (conversation != null) {
+                cache.removeConversationFromConversationList(conversation);
             }
+            cache.addConversationToConversationList(entity);
+            saveConversationById(conversationId, entity);
+        }
+    }
 
-            if (!updated) {
-                cache.addConversationToConversationList(entity);
-                saveConversationById(conversationId, entity);
+    /**
+     * Reads the messages of the given conversation that were waiting to be sent, in the order
+     * they were sent by the user. The outbox is read on the outbox I/O thread once the writes
+     * requested before are done.
+     *
+     * @param conversationId the ID of the conversation
+     * @param callback       the {@link OutboxCallback} to invoke on the outbox I/O thread
+     */
+    public void getOutbox(final String conversationId, @NonNull final OutboxCallback callback) {
+        final BaseStorage storage = getPersistence(StorageScope.USER_ID, Type.OUTBOX);
+
+        getOutboxExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                OutboxDto outbox = conversationId != null
+                        ? storage.get(conversationId, OutboxDto.class)
+                        : null;
+
+                callback.onOutboxRead(outbox != null ? outbox.getEntries() : new ArrayList<OutboxEntryDto>());
             }
+        });
+    }
+
+    /**
+     * Saves the messages of the given conversation that are waiting to be sent. The entries are
+     * serialized on the calling thread, and written in order with the other outbox writes on the
+     * outbox I/O thread.
+     *
+     * @param conversationId the ID of the conversation
+     * @param entries        the outbox entries to be stored, in the order they should be sent
+     * @param onSaved        an optional {@link Runnable} to invoke on the outbox I/O thread once
+     *                       the outbox is written, even if the write failed
+     */
+    public void saveOutbox(
+            final String conversationId,
+            @NonNull final List<OutboxEntryDto> entries,
+            @Nullable final Runnable onSaved) {
+        final SnapshotStorage storage = outboxStorageFactory.create(getStorageName(StorageScope.USER_ID));
+        Object snapshot = null;
+
+        try {
+            snapshot = storage.snapshot(new OutboxDto(entries));
+        } catch (IOException e) {
+            Logger.e(LOG_TAG, "Unable to serialize outbox (%s)", conversationId);
         }
+
+        final Object outbox = snapshot;
+        getOutboxExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (outbox != null) {
+                        storage.putSnapshot(conversationId, outbox);
+                    }
+                } finally {
+                    if (onSaved != null) {
+                        onSaved.run();
+                    }
+                }
+            }
+        });
     }
 
     /**
@@ -371,10 +594,10 @@ public class PersistenceFacade {
     }
 
     /**
-     * @return if there is more conversations to be fetched or not.
+     * @return if there is more conversations to be loaded from storage or fetched, or not.
      */
     public boolean isHasMoreConversations() {
-        return cache.isHasMoreConversations();
+        return !cache.isAllStoredPagesLoaded() || cache.isHasMoreConversations();
     }
     // endregion
 
@@ -405,23 +628,123 @@ public class PersistenceFacade {
     public void clearByScope(@NonNull StorageScope scope) {
         cache = PersistenceCache.create();
         for (Type type : Type.values()) {
+            if (type == Type.OUTBOX) {
+                continue;
+            }
             getPersistence(scope, type).clear();
         }
+
+        // Outboxes are only ever stored per user
+        if (scope == StorageScope.USER_ID) {
+            final BaseStorage storage = getPersistence(scope, Type.OUTBOX);
+
+            // Cleared after the pending outbox writes, so that none of them restores the journal
+            getOutboxExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    storage.clear();
+                }
+            });
+        }
     }
     // endregion
 
     /**
-     * Only the first most updated 10 conversations will be stored in the local file storage so this method must only
-     * return the first most updated 10 conversations.
+     * Writes the cached conversation list to the local file storage in pages of
+     * {@link #CONVERSATIONS_LIST_PAGE_SIZE} conversations, see
+     * {@link PersistenceCache#getStoredPages(int)}. Only the pages whose contents changed are
+     * written, and the stored pages that have not been loaded are left as they are. The first page
+     * also records whether there are more conversations to be fetched.
+     */
+    private synchronized void persistConversationsList() {
+        if (cache.getStoredPageCount() == 0 && !cache.isAllStoredPagesLoaded()) {
+            loadNextConversationsListPage();
+        }
+
+        PersistenceCache cache = this.cache;
+        BaseStorage storage = getPersistence(StorageScope.USER_ID, Type.FILE);
+        boolean hasMore = cache.isHasMoreConversations();
+        List<List<ConversationDto>> pages = cache.getStoredPages(CONVERSATIONS_LIST_PAGE_SIZE);
+
+        for (int page = 0; page < pages.size(); page++) {
+            List<ConversationDto> conversations = pages.get(page);
+            if (!cache.isStoredPageChanged(page, conversations, hasMore)) {
+                continue;
+            }
+
+            ConversationsListResponseDto storedPage = new ConversationsListResponseDto(conversations);
+            if (page == 0) {
+                ConversationsPaginationResponseDto pagination = new ConversationsPaginationResponseDto();
+                pagination.setHasMore(hasMore);
+                storedPage.setConversationsPagination(pagination);
+            }
+
+            storage.put(getConversationsListPageKey(page), storedPage);
+            cache.onStoredPageWritten(page, conversations, hasMore);
+        }
+
+        int storedPageTotal = getStoredPageTotal(storage);
+        int pageTotal = Math.max(storedPageTotal, pages.size());
+        if (cache.isAllStoredPagesLoaded()) {
+            for (int page = pages.size(); page < storedPageTotal; page++) {
+                storage.remove(getConversationsListPageKey(page));
+            }
+            pageTotal = pages.size();
+        }
+
+        if (pageTotal != storedPageTotal) {
+            storage.put(CONVERSATIONS_LIST_PAGE_COUNT_KEY, pageTotal);
+            cache.setStoredPageTotal(pageTotal);
+        }
+        cache.onStoredPagesWritten(pages.size());
+    }
+
+    /**
+     * Before pages were counted only the first page of the conversation list was stored, so at
+     * most one page exists when no count is stored.
      *
-     * @return the conversation list stored in the local file storage.
+     * @param storage the storage holding the conversation list
+     * @return the number of pages of the conversation list that exist on disk
      */
-    private List<ConversationDto> getConversationListFromFileStorage() {
-        ConversationsListResponseDto persistedList = getPersistence(StorageScope.USER_ID, Type.FILE)
-                .get(CONVERSATIONS_LIST_KEY, ConversationsListResponseDto.class);
-        return (persistedList != null && persistedList.getConversations() != null)
-                ? persistedList.getConversations()
-                : new ArrayList<ConversationDto>();
+    private int getStoredPageTotal(@NonNull BaseStorage storage) {
+        int storedPageTotal = cache.getStoredPageTotal();
+        if (storedPageTotal < 0) {
+            Integer storedCount = storage.get(CONVERSATIONS_LIST_PAGE_COUNT_KEY, Integer.class);
+            storedPageTotal = storedCount != null ? storedCount : 1;
+            cache.setStoredPageTotal(storedPageTotal);
+        }
+        return storedPageTotal;
+    }
+
+    /**
+     * The first page is stored with the key that was used when only the first page was stored,
+     * so that it is still read after upgrading.
+     *
+     * @param page the index of the page
+     * @return the key for storing the given page of the conversation list
+     */
+    private String getConversationsListPageKey(int page) {
+        return page == 0 ? CONVERSATIONS_LIST_KEY : CONVERSATIONS_LIST_KEY + "-" + page;
+    }
+
+    /**
+     * Conversations used to be stored as a single file in the {@link Type#FILE} storage. If one
+     * exists for the given ID it is moved to the {@link Type#CONVERSATION_LOG} storage.
+     *
+     * @param conversationId the ID of the conversation to be migrated
+     * @return the migrated {@link ConversationDto}, or null if there was nothing to migrate
+     */
+    @Nullable
+    private ConversationDto migrateConversationToLog(@NonNull final String conversationId) {
+        BaseStorage fileStorage = getPersistence(StorageScope.USER_ID, Type.FILE);
+        ConversationDto conversation = fileStorage.get(conversationId, ConversationDto.class);
+
+        if (conversation != null) {
+            getPersistence(StorageScope.USER_ID, Type.CONVERSATION_LOG).put(conversationId, conversation);
+            fileStorage.remove(conversationId);
+        }
+
+        return conversation;
     }
 
     /**
@@ -438,11 +761,52 @@ public class PersistenceFacade {
 
         String storageName = getStorageName(scope);
 
-        if (type == Type.SHARED_PREFERENCES) {
-            return sharedPreferencesStorageFactory.create(storageName);
-        } else {
-            return fileStorageFactory.create(storageName);
+        switch (type) {
+            case SHARED_PREFERENCES:
+                return sharedPreferencesStorageFactory.create(storageName);
+            case CONVERSATION_LOG:
+                return getWriteBehindStorage(conversationLogStorageFactory.create(storageName));
+            case OUTBOX:
+                return outboxStorageFactory.create(storageName);
+            case FILE:
+            default:
+                return getWriteBehindStorage(fileStorageFactory.create(storageName));
+        }
+    }
+
+    /**
+     * Every outbox read and write goes through a single thread, so that they happen in the order
+     * they were requested without blocking the calling thread.
+     *
+     * @return the {@link ExecutorService} on which outboxes are read and written
+     */
+    @NonNull
+    private synchronized ExecutorService getOutboxExecutor() {
+        if (outboxExecutor == null) {
+            outboxExecutor = Executors.newSingleThreadExecutor();
+        }
+        return outboxExecutor;
+    }
+
+    /**
+     * Decorates the given {@link SnapshotStorage} with a {@link WriteBehindStorage} if write-behind
+     * is enabled. See {@link #setWriteBehindEnabled(boolean)}.
+     *
+     * @param storage the {@link SnapshotStorage} to be decorated
+     * @return the decorated {@link BaseStorage}, or the given one if write-behind is disabled
+     */
+    @NonNull
+    private synchronized BaseStorage getWriteBehindStorage(@NonNull final SnapshotStorage storage) {
+        if (writeBehindExecutor == null) {
+            return storage;
+        }
+
+        WriteBehindStorage writeBehindStorage = writeBehindStorageMap.get(storage);
+        if (writeBehindStorage == null) {
+            writeBehindStorage = new WriteBehindStorage(storage, writeBehindExecutor, WRITE_BEHIND_WINDOW_MILLIS);
+            writeBehindStorageMap.put(storage, writeBehindStorage);
         }
+        return writeBehindStorage;
     }
 
     /**
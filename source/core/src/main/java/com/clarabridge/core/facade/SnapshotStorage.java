@@ -0,0 +1,34 @@
+package com.clarabridge.core.facade;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A {@link BaseStorage} whose writes can be split in two: taking a snapshot of the data on the
+ * calling thread, while the caller still guards it, and writing that snapshot later on another
+ * thread. See {@link WriteBehindStorage}.
+ */
+interface SnapshotStorage extends BaseStorage {
+
+    /**
+     * Captures the given data as it should be written by {@link #putSnapshot(String, Object)}.
+     * The snapshot does not share any mutable state with the data, so the data can keep changing
+     * once this method returns.
+     *
+     * @param data the data to be stored
+     * @return the snapshot of the data
+     * @throws IOException if the data could not be serialized
+     */
+    @Nullable
+    Object snapshot(@Nullable Object data) throws IOException;
+
+    /**
+     * Stores a snapshot taken by {@link #snapshot(Object)}, with the same effect as storing the
+     * data it was taken from with {@link #put(String, Object)}.
+     *
+     * @param key      the key for identifying the data
+     * @param snapshot the snapshot to be stored
+     */
+    void putSnapshot(String key, @Nullable Object snapshot);
+}
@@ -0,0 +1,47 @@
+package com.clarabridge.core.facade;
+
+import com.google.gson.JsonElement;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Describes a {@link Serialization} that can also transform objects directly to and from a stream,
+ * without holding the whole serialized form in memory.
+ */
+public interface StreamingSerialization extends Serialization {
+
+    /**
+     * Serialize the given {@link Object} to the given {@link Writer}. Nothing is written if the
+     * object is null.
+     *
+     * @param object the {@link Object} to serialize
+     * @param writer the {@link Writer} to write the serialised object to
+     * @throws IOException if the object could not be written
+     */
+    void serialize(Object object, Writer writer) throws IOException;
+
+    /**
+     * Deserialize the data read from the given {@link Reader} into an object of type {@link T}
+     *
+     * @param reader the {@link Reader} to read the data from
+     * @param clazz specifies the type of of the deserialized {@link Object}
+     * @param <T> the type being returned
+     * @return an {@link Object} of type {@link T}, or null if the data was empty or invalid
+     */
+    <T> T deserialize(Reader reader, Class<T> clazz);
+
+    /**
+     * Deserialize the given {@link JsonElement} into an object of type {@link T}. This allows a
+     * single value already parsed from within a larger document to be bound without writing it
+     * back to a string.
+     *
+     * @param jsonElement the {@link JsonElement} to deserialize
+     * @param clazz specifies the type of of the deserialized {@link Object}
+     * @param <T> the type being returned
+     * @return an {@link Object} of type {@link T}, or null if the value was null or invalid
+     */
+    <T> T deserialize(JsonElement jsonElement, Class<T> clazz);
+
+}
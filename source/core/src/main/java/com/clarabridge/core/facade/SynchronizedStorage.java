@@ -2,44 +2,86 @@ package com.clarabridge.core.facade;
 
 import androidx.annotation.Nullable;
 
+import java.io.IOException;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * A {@link BaseStorage} decorator that synchronizes reading, writing, and removing.
+ * <p>
+ * Keys are spread over a fixed table of {@link ReadWriteLock}s, so operations on different keys
+ * rarely wait for each other, and any number of reads of the same key can run at the same time.
+ * A write waits for the reads of its key to complete, and reads wait for the write.
  */
-class SynchronizedStorage implements BaseStorage {
+class SynchronizedStorage implements SnapshotStorage {
+
+    private static final int LOCK_STRIPE_COUNT = 32;
 
-    private BaseStorage storage;
-    private String namespace;
+    private final SnapshotStorage storage;
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPE_COUNT];
 
     /**
-     * Constructs an instance of {@link SynchronizedStorage} to decorate the given {@link BaseStorage}.
+     * Constructs an instance of {@link SynchronizedStorage} to decorate the given {@link SnapshotStorage}.
      *
      * @param storage the storage implementation to be decorated
-     * @param namespace the namespace of this storage mechanism to prevent unintended deadlock
      */
-    SynchronizedStorage(BaseStorage storage, String namespace) {
+    SynchronizedStorage(SnapshotStorage storage) {
         this.storage = storage;
-        this.namespace = namespace;
+
+        for (int i = 0; i < LOCK_STRIPE_COUNT; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
     }
 
     @Override
     public void put(String key, @Nullable Object data) {
-        synchronized ((key + namespace).intern()) {
+        ReadWriteLock lock = getLock(key);
+        lock.writeLock().lock();
+        try {
             storage.put(key, data);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object snapshot(@Nullable Object data) throws IOException {
+        return storage.snapshot(data);
+    }
+
+    @Override
+    public void putSnapshot(String key, @Nullable Object snapshot) {
+        ReadWriteLock lock = getLock(key);
+        lock.writeLock().lock();
+        try {
+            storage.putSnapshot(key, snapshot);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     @Nullable
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        synchronized ((key + namespace).intern()) {
+        ReadWriteLock lock = getLock(key);
+        lock.readLock().lock();
+        try {
             return storage.get(key, clazz);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     @Override
     public void remove(String key) {
-        synchronized ((key + namespace).intern()) {
+        ReadWriteLock lock = getLock(key);
+        lock.writeLock().lock();
+        try {
             storage.remove(key);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -47,4 +89,18 @@ class SynchronizedStorage implements BaseStorage {
     public void clear() {
         storage.clear();
     }
+
+    /**
+     * Gets the lock guarding the given key. The bits of the hash code are mixed before picking a
+     * lock, since the low bits of similar keys are often the same.
+     *
+     * @param key the key being accessed
+     * @return the {@link ReadWriteLock} for the key
+     */
+    private ReadWriteLock getLock(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return locks[hash & (LOCK_STRIPE_COUNT - 1)];
+    }
 }
@@ -0,0 +1,140 @@
+package com.clarabridge.core.facade;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.clarabridge.core.Logger;
+
+/**
+ * A {@link BaseStorage} decorator that defers writes to a background I/O thread.
+ * <p>
+ * Writes are held for a short window before being handed to the decorated storage, and repeated
+ * writes to the same key within that window are coalesced so that only the last one is written.
+ * Reading a key with a pending write writes it first, so reads always observe the latest data.
+ * <p>
+ * The data given to {@link #put(String, Object)} is captured by
+ * {@link SnapshotStorage#snapshot(Object)} on the calling thread, so only the disk I/O is
+ * deferred. Changes made to the same instance after it was put are not included in the write,
+ * and the instance is never read on the I/O thread while its owner may be changing it.
+ */
+class WriteBehindStorage implements BaseStorage {
+
+    private static final String LOG_TAG = "WriteBehindStorage";
+
+    private final SnapshotStorage storage;
+    private final ScheduledExecutorService ioExecutor;
+    private final long windowMillis;
+    private final Object writeLock = new Object();
+    private final Map<String, Object> pendingWrites = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (pendingWrites) {
+                flushScheduled = false;
+            }
+            flush();
+        }
+    };
+
+    /**
+     * Constructs an instance of {@link WriteBehindStorage} to decorate the given {@link SnapshotStorage}.
+     *
+     * @param storage      the storage implementation to be decorated
+     * @param ioExecutor   the {@link ScheduledExecutorService} on which pending writes are performed
+     * @param windowMillis the time in milliseconds a write is held for before being performed
+     */
+    WriteBehindStorage(SnapshotStorage storage, ScheduledExecutorService ioExecutor, long windowMillis) {
+        this.storage = storage;
+        this.ioExecutor = ioExecutor;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public void put(String key, @Nullable Object data) {
+        Object snapshot;
+        try {
+            snapshot = storage.snapshot(data);
+        } catch (IOException e) {
+            Logger.e(LOG_TAG, "Unable to serialize data (%s)", key);
+            return;
+        }
+
+        synchronized (pendingWrites) {
+            pendingWrites.put(key, snapshot);
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                ioExecutor.schedule(flushTask, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        write(key);
+        return storage.get(key, clazz);
+    }
+
+    @Override
+    public void remove(String key) {
+        synchronized (writeLock) {
+            synchronized (pendingWrites) {
+                pendingWrites.remove(key);
+            }
+            storage.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            synchronized (pendingWrites) {
+                pendingWrites.clear();
+            }
+            storage.clear();
+        }
+    }
+
+    /**
+     * Performs every pending write on the calling thread.
+     */
+    void flush() {
+        List<String> keys;
+        synchronized (pendingWrites) {
+            keys = new ArrayList<>(pendingWrites.keySet());
+        }
+
+        for (String key : keys) {
+            write(key);
+        }
+    }
+
+    /**
+     * Performs the pending write for the given key, if there is one. Writes are serialized so that
+     * a write of older data can never land after a write of newer data for the same key.
+     *
+     * @param key the key whose pending write should be performed
+     */
+    private void write(String key) {
+        synchronized (writeLock) {
+            Object snapshot;
+            synchronized (pendingWrites) {
+                if (!pendingWrites.containsKey(key)) {
+                    return;
+                }
+                snapshot = pendingWrites.remove(key);
+            }
+            storage.putSnapshot(key, snapshot);
+        }
+    }
+}
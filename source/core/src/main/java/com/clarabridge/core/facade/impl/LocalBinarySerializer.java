@@ -0,0 +1,665 @@
+package com.clarabridge.core.facade.impl;
+
+import android.util.Log;
+
+import com.google.gson.JsonElement;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import com.clarabridge.core.facade.BinarySerialization;
+import com.clarabridge.core.facade.StreamingSerialization;
+import com.clarabridge.core.model.AppUserDto;
+import com.clarabridge.core.model.ConversationDto;
+import com.clarabridge.core.model.ConversationsListResponseDto;
+import com.clarabridge.core.model.ConversationsPaginationResponseDto;
+import com.clarabridge.core.model.CoordinatesDto;
+import com.clarabridge.core.model.DisplaySettingsDto;
+import com.clarabridge.core.model.MessageActionDto;
+import com.clarabridge.core.model.MessageDto;
+import com.clarabridge.core.model.MessageItemDto;
+import com.clarabridge.core.model.ParticipantDto;
+import com.clarabridge.core.model.SourceDto;
+
+/**
+ * A {@link BinarySerialization} that writes the persisted conversation and user models in a
+ * compact binary encoding.
+ * <p>
+ * Binary data starts with a marker byte, a format version and a tag identifying the encoded
+ * type. Each supported type is encoded as its fields in a fixed order, so the field order must
+ * not change without bumping {@link #FORMAT_VERSION}. Any other type is stored as JSON behind
+ * the same header.
+ * <p>
+ * Data that does not start with the marker byte is read as JSON, which allows data written by
+ * {@link LocalGsonSerializer} to be read and migrated on the next write. The {@link String},
+ * {@link Reader} and {@link Writer} based operations are delegated to {@link LocalGsonSerializer}
+ * so that text storage and realtime events keep using streamed JSON.
+ */
+public class LocalBinarySerializer implements BinarySerialization, StreamingSerialization {
+
+    private static final String TAG = "LocalBinarySerializer";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MARKER = 0xCB;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_JSON = 0;
+    private static final int TYPE_CONVERSATION = 1;
+    private static final int TYPE_MESSAGE = 2;
+    private static final int TYPE_PARTICIPANT = 3;
+    private static final int TYPE_APP_USER = 4;
+    private static final int TYPE_CONVERSATIONS_LIST = 5;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_NUMBER = 2;
+    private static final int VALUE_BOOLEAN = 3;
+    private static final int VALUE_LIST = 4;
+    private static final int VALUE_MAP = 5;
+    private static final int VALUE_JSON = 6;
+
+    private final LocalGsonSerializer jsonSerializer;
+
+    @Inject
+    public LocalBinarySerializer(LocalGsonSerializer jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public String serialize(final Object object) {
+        return jsonSerializer.serialize(object);
+    }
+
+    @Override
+    public <T> T deserialize(final String data, final Class<T> clazz) {
+        return jsonSerializer.deserialize(data, clazz);
+    }
+
+    @Override
+    public void serialize(final Object object, final Writer writer) throws IOException {
+        jsonSerializer.serialize(object, writer);
+    }
+
+    @Override
+    public <T> T deserialize(final Reader reader, final Class<T> clazz) {
+        return jsonSerializer.deserialize(reader, clazz);
+    }
+
+    @Override
+    public <T> T deserialize(final JsonElement jsonElement, final Class<T> clazz) {
+        return jsonSerializer.deserialize(jsonElement, clazz);
+    }
+
+    @Override
+    public void serialize(final Object object, final OutputStream outputStream) throws IOException {
+        if (object == null) {
+            return;
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeByte(MARKER);
+        out.writeByte(FORMAT_VERSION);
+
+        Class<?> type = object.getClass();
+        if (type == ConversationDto.class) {
+            out.writeByte(TYPE_CONVERSATION);
+            writeConversation(out, (ConversationDto) object);
+        } else if (type == MessageDto.class) {
+            out.writeByte(TYPE_MESSAGE);
+            writeMessage(out, (MessageDto) object);
+        } else if (type == ParticipantDto.class) {
+            out.writeByte(TYPE_PARTICIPANT);
+            writeParticipant(out, (ParticipantDto) object);
+        } else if (type == AppUserDto.class) {
+            out.writeByte(TYPE_APP_USER);
+            writeAppUser(out, (AppUserDto) object);
+        } else if (type == ConversationsListResponseDto.class) {
+            out.writeByte(TYPE_CONVERSATIONS_LIST);
+            writeConversationsList(out, (ConversationsListResponseDto) object);
+        } else {
+            out.writeByte(TYPE_JSON);
+            Writer writer = new OutputStreamWriter(out, UTF_8);
+            jsonSerializer.serialize(object, writer);
+            writer.flush();
+        }
+        out.flush();
+    }
+
+    @Override
+    public <T> T deserialize(final InputStream inputStream, final Class<T> clazz) {
+        try {
+            PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 1);
+            int marker = pushbackInputStream.read();
+
+            if (marker == -1) {
+                return null;
+            }
+
+            if (marker != MARKER) {
+                pushbackInputStream.unread(marker);
+                return jsonSerializer.deserialize(new InputStreamReader(pushbackInputStream, UTF_8), clazz);
+            }
+
+            DataInputStream in = new DataInputStream(pushbackInputStream);
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                Log.d(TAG, String.format("Unable to deserialize data of format version %d", version));
+                return null;
+            }
+
+            Object object;
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case TYPE_CONVERSATION:
+                    object = readConversation(in);
+                    break;
+                case TYPE_MESSAGE:
+                    object = readMessage(in);
+                    break;
+                case TYPE_PARTICIPANT:
+                    object = readParticipant(in);
+                    break;
+                case TYPE_APP_USER:
+                    object = readAppUser(in);
+                    break;
+                case TYPE_CONVERSATIONS_LIST:
+                    object = readConversationsList(in);
+                    break;
+                case TYPE_JSON:
+                    return jsonSerializer.deserialize(new InputStreamReader(in, UTF_8), clazz);
+                default:
+                    Log.d(TAG, String.format("Unable to deserialize data of type %d", type));
+                    return null;
+            }
+
+            return clazz.isInstance(object) ? clazz.cast(object) : null;
+        } catch (final Exception ex) {
+            Log.d(TAG, String.format("Unable to deserialize data as %s", clazz.getSimpleName()), ex);
+        }
+
+        return null;
+    }
+
+    //region Models
+
+    private void writeConversation(DataOutputStream out, ConversationDto conversation) throws IOException {
+        writeString(out, conversation.getId());
+        writeString(out, conversation.getDisplayName());
+        writeString(out, conversation.getDescription());
+        writeString(out, conversation.getIconUrl());
+        writeDouble(out, conversation.getBusinessLastRead());
+        out.writeBoolean(conversation.getDefault());
+        writeDouble(out, conversation.getLastUpdatedAt());
+        writeMap(out, conversation.getMetadata());
+        writeString(out, conversation.getType());
+
+        List<ParticipantDto> participants = conversation.getParticipants();
+        writeVarInt(out, participants.size());
+        for (ParticipantDto participant : participants) {
+            writeParticipant(out, participant);
+        }
+
+        List<MessageDto> messages = conversation.getMessages();
+        synchronized (messages) {
+            writeVarInt(out, messages.size());
+            for (MessageDto message : messages) {
+                writeMessage(out, message);
+            }
+        }
+    }
+
+    private ConversationDto readConversation(DataInputStream in) throws IOException {
+        ConversationDto conversation = new ConversationDto();
+        conversation.setId(readString(in));
+        conversation.setDisplayName(readString(in));
+        conversation.setDescription(readString(in));
+        conversation.setIconUrl(readString(in));
+        conversation.setBusinessLastRead(readDouble(in));
+        conversation.setDefault(in.readBoolean());
+        conversation.setLastUpdatedAt(readDouble(in));
+        conversation.setMetadata(readMap(in));
+        conversation.setType(readString(in));
+
+        int participantCount = readVarInt(in);
+        List<ParticipantDto> participants = new ArrayList<>(participantCount);
+        for (int i = 0; i < participantCount; i++) {
+            participants.add(readParticipant(in));
+        }
+        conversation.setParticipants(participants);
+
+        int messageCount = readVarInt(in);
+        List<MessageDto> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            messages.add(readMessage(in));
+        }
+        conversation.setMessages(messages);
+        return conversation;
+    }
+
+    private void writeParticipant(DataOutputStream out, ParticipantDto participant) throws IOException {
+        writeString(out, participant.getId());
+        writeString(out, participant.getUserId());
+        writeVarInt(out, participant.getUnreadCount());
+        writeDouble(out, participant.getLastRead());
+    }
+
+    private ParticipantDto readParticipant(DataInputStream in) throws IOException {
+        return new ParticipantDto(
+                readString(in),
+                readString(in),
+                readVarInt(in),
+                readDouble(in));
+    }
+
+    private void writeMessage(DataOutputStream out, MessageDto message) throws IOException {
+        writeString(out, message.getId());
+        writeString(out, message.getDisplayName());
+        writeString(out, message.getRole());
+        writeString(out, message.getText());
+        writeString(out, message.getTextFallback());
+        writeString(out, message.getType());
+        writeString(out, message.getRuleId());
+        writeString(out, message.getPayload());
+        writeMap(out, message.getMetadata());
+        writeDouble(out, message.getReceived());
+        writeString(out, message.getUserId());
+        writeString(out, message.getMediaUrl());
+        writeString(out, message.getMediaType());
+        out.writeLong(message.getMediaSize());
+        writeString(out, message.getAvatarUrl());
+
+        CoordinatesDto coordinates = message.getCoordinates();
+        writeDouble(out, coordinates.getLat());
+        writeDouble(out, coordinates.getLong());
+
+        List<MessageActionDto> actions = message.getMessageActions();
+        writeVarInt(out, actions.size());
+        for (MessageActionDto action : actions) {
+            writeAction(out, action);
+        }
+
+        List<MessageItemDto> items = message.getMessageItems();
+        writeVarInt(out, items.size());
+        for (MessageItemDto item : items) {
+            writeItem(out, item);
+        }
+
+        writeString(out, message.getDisplaySettings().getImageAspectRatio());
+
+        SourceDto source = message.getSource();
+        out.writeBoolean(source != null);
+        if (source != null) {
+            writeString(out, source.getType());
+            writeString(out, source.getId());
+            writeString(out, source.getGroup());
+            writeString(out, source.getIntent());
+            writeString(out, source.getOriginalMessageId());
+            writeDouble(out, source.getOriginalMessageTimestamp());
+        }
+
+        out.writeByte(message.getStatus().ordinal());
+        writeDouble(out, message.getCreated());
+        out.writeBoolean(message.isFromCurrentUser());
+    }
+
+    private MessageDto readMessage(DataInputStream in) throws IOException {
+        MessageDto message = new MessageDto();
+        message.setId(readString(in));
+        message.setDisplayName(readString(in));
+        message.setRole(readString(in));
+        message.setText(readString(in));
+        message.setTextFallback(readString(in));
+        message.setType(readString(in));
+        message.setRuleId(readString(in));
+        message.setPayload(readString(in));
+        message.setMetadata(readMap(in));
+        message.setReceived(readDouble(in));
+        message.setUserId(readString(in));
+        message.setMediaUrl(readString(in));
+        message.setMediaType(readString(in));
+        message.setMediaSize(in.readLong());
+        message.setAvatarUrl(readString(in));
+        message.setCoordinates(new CoordinatesDto(readDouble(in), readDouble(in)));
+
+        int actionCount = readVarInt(in);
+        List<MessageActionDto> actions = new ArrayList<>(actionCount);
+        for (int i = 0; i < actionCount; i++) {
+            actions.add(readAction(in));
+        }
+        message.setMessageActions(actions);
+
+        int itemCount = readVarInt(in);
+        List<MessageItemDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(readItem(in));
+        }
+        message.setMessageItems(items);
+
+        message.setDisplaySettings(new DisplaySettingsDto(readString(in)));
+
+        if (in.readBoolean()) {
+            SourceDto source = new SourceDto();
+            source.setType(readString(in));
+            source.setId(readString(in));
+            source.setGroup(readString(in));
+            source.setIntent(readString(in));
+            source.setOriginalMessageId(readString(in));
+            source.setOriginalMessageTimestamp(readDouble(in));
+            message.setSource(source);
+        }
+
+        message.setStatus(MessageDto.Status.values()[in.readUnsignedByte()]);
+        message.setCreated(readDouble(in));
+        message.setIsFromCurrentUser(in.readBoolean());
+        return message;
+    }
+
+    private void writeAction(DataOutputStream out, MessageActionDto action) throws IOException {
+        writeString(out, action.getId());
+        writeString(out, action.getText());
+        writeString(out, action.getIconUrl());
+        writeString(out, action.getUri());
+        writeString(out, action.getFallback());
+        writeString(out, action.getSize());
+        writeString(out, action.getType());
+        writeString(out, action.getPayload());
+        writeMap(out, action.getMetadata());
+        out.writeLong(action.getAmount());
+        writeString(out, action.getState());
+        writeString(out, action.getCurrency());
+        out.writeBoolean(action.isDefault());
+    }
+
+    private MessageActionDto readAction(DataInputStream in) throws IOException {
+        MessageActionDto action = new MessageActionDto();
+        action.setId(readString(in));
+        action.setText(readString(in));
+        action.setIconUrl(readString(in));
+        action.setUri(readString(in));
+        action.setFallback(readString(in));
+        action.setSize(readString(in));
+        action.setType(readString(in));
+        action.setPayload(readString(in));
+        action.setMetadata(readMap(in));
+        action.setAmount(in.readLong());
+        action.setState(readString(in));
+        action.setCurrency(readString(in));
+        action.setDefault(in.readBoolean());
+        return action;
+    }
+
+    private void writeItem(DataOutputStream out, MessageItemDto item) throws IOException {
+        writeString(out, item.getTitle());
+        writeString(out, item.getDescription());
+        writeString(out, item.getMediaUrl());
+        writeString(out, item.getMediaType());
+        writeString(out, item.getSize());
+
+        List<MessageActionDto> actions = item.getMessageActions();
+        writeVarInt(out, actions.size());
+        for (MessageActionDto action : actions) {
+            writeAction(out, action);
+        }
+
+        writeMap(out, item.getMetadata());
+    }
+
+    private MessageItemDto readItem(DataInputStream in) throws IOException {
+        MessageItemDto item = new MessageItemDto();
+        item.setTitle(readString(in));
+        item.setDescription(readString(in));
+        item.setMediaUrl(readString(in));
+        item.setMediaType(readString(in));
+        item.setSize(readString(in));
+
+        int actionCount = readVarInt(in);
+        List<MessageActionDto> actions = new ArrayList<>(actionCount);
+        for (int i = 0; i < actionCount; i++) {
+            actions.add(readAction(in));
+        }
+        item.setMessageActions(actions);
+
+        item.setMetadata(readMap(in));
+        return item;
+    }
+
+    private void writeAppUser(DataOutputStream out, AppUserDto appUser) throws IOException {
+        writeString(out, appUser.getUserId());
+        writeString(out, appUser.getExternalId());
+        writeString(out, appUser.getFirstName());
+        writeString(out, appUser.getLastName());
+        writeString(out, appUser.getEmail());
+        writeString(out, appUser.getSignedUpAt());
+        writeMap(out, appUser.getMetadata());
+        out.writeBoolean(appUser.getHasPaymentInfo());
+        out.writeBoolean(appUser.getModified());
+    }
+
+    private AppUserDto readAppUser(DataInputStream in) throws IOException {
+        AppUserDto appUser = new AppUserDto();
+        appUser.setUserId(readString(in));
+        appUser.setExternalId(readString(in));
+        appUser.setFirstName(readString(in));
+        appUser.setLastName(readString(in));
+        appUser.setEmail(readString(in));
+        appUser.setSignedUpAt(readString(in));
+        appUser.setMetadata(readMap(in));
+        appUser.setHasPaymentInfo(in.readBoolean());
+        appUser.setModified(in.readBoolean());
+        return appUser;
+    }
+
+    private void writeConversationsList(DataOutputStream out, ConversationsListResponseDto list) throws IOException {
+        List<ConversationDto> conversations = list.getConversations();
+        out.writeBoolean(conversations != null);
+        if (conversations != null) {
+            writeVarInt(out, conversations.size());
+            for (ConversationDto conversation : conversations) {
+                writeConversation(out, conversation);
+            }
+        }
+
+        ConversationsPaginationResponseDto pagination = list.getConversationsPagination();
+        out.writeBoolean(pagination != null);
+        if (pagination != null) {
+            out.writeBoolean(pagination.isHasMore());
+        }
+    }
+
+    private ConversationsListResponseDto readConversationsList(DataInputStream in) throws IOException {
+        List<ConversationDto> conversations = null;
+        if (in.readBoolean()) {
+            int conversationCount = readVarInt(in);
+            conversations = new ArrayList<>(conversationCount);
+            for (int i = 0; i < conversationCount; i++) {
+                conversations.add(readConversation(in));
+            }
+        }
+
+        ConversationsListResponseDto list = new ConversationsListResponseDto(conversations);
+        if (in.readBoolean()) {
+            ConversationsPaginationResponseDto pagination = new ConversationsPaginationResponseDto();
+            pagination.setHasMore(in.readBoolean());
+            list.setConversationsPagination(pagination);
+        }
+        return list;
+    }
+    //endregion
+
+    //region Values
+
+    /**
+     * Writes a map of arbitrary values, such as message metadata. Values are limited to the types
+     * produced when parsing JSON; numbers are stored as doubles and any other type as JSON, which
+     * matches how they would be read back from JSON.
+     */
+    private void writeMap(DataOutputStream out, Map<String, Object> map) throws IOException {
+        if (map == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        writeVarInt(out, map.size() + 1);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private Map<String, Object> readMap(DataInputStream in) throws IOException {
+        int size = readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in));
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Number) {
+            out.writeByte(VALUE_NUMBER);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            out.writeByte(VALUE_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map && isStringKeyed((Map<?, ?>) value)) {
+            out.writeByte(VALUE_MAP);
+            writeMap(out, (Map<String, Object>) value);
+        } else {
+            out.writeByte(VALUE_JSON);
+            writeString(out, jsonSerializer.serialize(value));
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return readString(in);
+            case VALUE_NUMBER:
+                return in.readDouble();
+            case VALUE_BOOLEAN:
+                return in.readBoolean();
+            case VALUE_LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case VALUE_MAP:
+                return readMap(in);
+            case VALUE_JSON:
+                return jsonSerializer.deserialize(readString(in), Object.class);
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private boolean isStringKeyed(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a nullable {@link String} as its UTF-8 length plus one, or zero if it is null,
+     * followed by its UTF-8 bytes.
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    /**
+     * Writes a non-negative int using 7 bits per byte, with the high bit set on every byte but the last.
+     */
+    private void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("Malformed variable length integer");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+    //endregion
+}
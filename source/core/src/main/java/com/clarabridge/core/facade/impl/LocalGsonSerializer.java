@@ -4,19 +4,29 @@ import android.util.Log;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 
 import javax.inject.Inject;
 
-import com.clarabridge.core.facade.Serialization;
+import com.clarabridge.core.facade.StreamingSerialization;
+import com.clarabridge.core.model.ModelTypeAdapterFactory;
 
-public class LocalGsonSerializer implements Serialization {
+public class LocalGsonSerializer implements StreamingSerialization {
 
     private static final String TAG = "LocalGsonSerializer";
     private final Gson gson;
 
     @Inject
     public LocalGsonSerializer() {
-        this.gson = new GsonBuilder().create();
+        this.gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(true))
+                .create();
     }
 
     @Override
@@ -42,5 +52,43 @@ public class LocalGsonSerializer implements Serialization {
 
         return null;
     }
+
+    @Override
+    public void serialize(final Object object, final Writer writer) throws IOException {
+        if (object == null) {
+            return;
+        }
+
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        try {
+            gson.toJson(object, object.getClass(), jsonWriter);
+        } catch (final Exception ex) {
+            throw new IOException("Unable to serialize " + object.getClass().getSimpleName(), ex);
+        }
+        jsonWriter.flush();
+    }
+
+    @Override
+    public <T> T deserialize(final Reader reader, final Class<T> clazz) {
+        try {
+            JsonReader jsonReader = gson.newJsonReader(reader);
+            return gson.fromJson(jsonReader, clazz);
+        } catch (final Exception ex) {
+            Log.d(TAG, String.format("Unable to deserialize data as %s", clazz.getSimpleName()), ex);
+        }
+
+        return null;
+    }
+
+    @Override
+    public <T> T deserialize(final JsonElement jsonElement, final Class<T> clazz) {
+        try {
+            return gson.fromJson(jsonElement, clazz);
+        } catch (final Exception ex) {
+            Log.d(TAG, String.format("Unable to deserialize data as %s", clazz.getSimpleName()), ex);
+        }
+
+        return null;
+    }
 }
 
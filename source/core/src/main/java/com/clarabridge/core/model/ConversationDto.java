@@ -7,6 +7,7 @@ import com.google.gson.annotations.SerializedName;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,11 @@ public class ConversationDto implements Serializable, Comparable<ConversationDto
     private List<ParticipantDto> participants;
     @Nullable
     private List<MessageDto> messages;
+    /**
+     * The index backing {@link #messages}, rebuilt from the list when it was read from storage
+     */
+    @Nullable
+    private transient volatile MessageList messageList;
 
     public void update(@NonNull final ConversationDto rhs) {
         this.id = rhs.id;
@@ -49,27 +55,32 @@ public class ConversationDto implements Serializable, Comparable<ConversationDto
         this.participants = rhs.participants;
 
         if (this.messages == null || this.messages.isEmpty() || rhs.messages == null || rhs.messages.isEmpty()) {
-            this.messages = rhs.messages != null ? Collections.synchronizedList(rhs.messages) : null;
+            if (rhs.messages != null) {
+                setIndexedMessages(rhs.messages);
+            } else {
+                this.messages = null;
+                this.messageList = null;
+            }
         } else {
             boolean shouldReplaceMessages = true;
 
             for (MessageDto message : rhs.messages) {
-                if (messages.contains(message)) {
+                if (findMessage(message) != null) {
                     shouldReplaceMessages = false;
                     break;
                 }
             }
 
             if (shouldReplaceMessages) {
-                messages = Collections.synchronizedList(rhs.messages);
+                setIndexedMessages(rhs.messages);
                 return;
             }
 
             synchronized (rhs.getMessages()) {
                 for (final MessageDto it : rhs.getMessages()) {
-                    int messageIndex = messages.indexOf(it);
-                    if (messageIndex >= 0) {
-                        messages.get(messageIndex).update(it);
+                    MessageDto message = findMessage(it);
+                    if (message != null) {
+                        message.update(it);
                     } else {
                         messages.add(it);
                     }
@@ -165,15 +176,54 @@ public class ConversationDto implements Serializable, Comparable<ConversationDto
         this.participants = participants;
     }
 
+    /**
+     * Returns the synchronized list of messages of this conversation, which keeps an index of its
+     * messages for {@link #findMessage(MessageDto)}.
+     *
+     * @return the list of messages
+     */
     @NonNull
     public List<MessageDto> getMessages() {
-        if (messages == null) {
-            messages = Collections.synchronizedList(new ArrayList<MessageDto>());
+        if (messageList == null) {
+            synchronized (this) {
+                if (messageList == null) {
+                    setIndexedMessages(messages);
+                }
+            }
         }
 
         return messages;
     }
 
+    /**
+     * Finds the message of this conversation that is equal to the given one, as defined by
+     * {@link MessageDto#equals(Object)}, without going through the whole list.
+     *
+     * @param message the message to look for
+     * @return the message equal to the given one, or null if this conversation has none
+     */
+    @Nullable
+    public MessageDto findMessage(@NonNull MessageDto message) {
+        List<MessageDto> messages = getMessages();
+
+        synchronized (messages) {
+            return messageList.find(message);
+        }
+    }
+
+    /**
+     * @param text the text to look for
+     * @return true if a message that was not stored by the server yet has the given text,
+     * false otherwise
+     */
+    public boolean containsMessageWithoutId(@Nullable String text) {
+        List<MessageDto> messages = getMessages();
+
+        synchronized (messages) {
+            return messageList.containsMessageWithoutId(text);
+        }
+    }
+
     @NonNull
     public List<MessageDto> getUnsentMessages() {
         List<MessageDto> unsentMessages = Collections.synchronizedList(new ArrayList<MessageDto>());
@@ -191,22 +241,52 @@ public class ConversationDto implements Serializable, Comparable<ConversationDto
         return unsentMessages;
     }
 
-    public void addMessages(List<MessageDto> messagesToAdd) {
+    /**
+     * Returns the received timestamp of the newest message that was stored by the server, which
+     * is where a fetch of the messages missed since then can start from.
+     *
+     * @return the newest received timestamp, or null if no message was received from the server
+     */
+    @Nullable
+    public Double getLatestReceived() {
+        Double latestReceived = null;
+
         if (messages == null) {
-            messages = Collections.synchronizedList(new ArrayList<MessageDto>());
+            return null;
         }
 
+        synchronized (messages) {
+            for (MessageDto messageDto : messages) {
+                Double received = messageDto.getReceived();
+
+                if (messageDto.getId() != null && received != null
+                        && (latestReceived == null || received > latestReceived)) {
+                    latestReceived = received;
+                }
+            }
+        }
+
+        return latestReceived;
+    }
+
+    public void addMessages(List<MessageDto> messagesToAdd) {
         if (messagesToAdd != null) {
-            messages.addAll(messagesToAdd);
+            getMessages().addAll(messagesToAdd);
         }
     }
 
     public void setMessages(final List<MessageDto> messages) {
         if (messages != null) {
-            this.messages = Collections.synchronizedList(new ArrayList<>(messages));
+            setIndexedMessages(messages);
         }
     }
 
+    private void setIndexedMessages(@Nullable Collection<MessageDto> messages) {
+        MessageList messageList = new MessageList(messages);
+        this.messages = Collections.synchronizedList(messageList);
+        this.messageList = messageList;
+    }
+
     /**
      * Returns the unread count of the {@link ParticipantDto} with the same userId.
      *
@@ -1,7 +1,14 @@
 package com.clarabridge.core.model;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -181,4 +188,124 @@ public class MessageActionDto implements Serializable {
     public int hashCode() {
         return id != null ? id.hashCode() : 0;
     }
+
+    /**
+     * A {@link TypeAdapter} binding the fields of {@link MessageActionDto} without reflection.
+     */
+    static final class GsonTypeAdapter extends TypeAdapter<MessageActionDto> {
+
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<Long> longAdapter;
+        private final TypeAdapter<Boolean> booleanAdapter;
+        private final TypeAdapter<Map<String, Object>> metadataAdapter;
+
+        GsonTypeAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+            longAdapter = gson.getAdapter(long.class);
+            booleanAdapter = gson.getAdapter(boolean.class);
+            metadataAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+            });
+        }
+
+        @Override
+        public void write(JsonWriter out, MessageActionDto value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("_id");
+            stringAdapter.write(out, value.id);
+            out.name("text");
+            stringAdapter.write(out, value.text);
+            out.name("iconUrl");
+            stringAdapter.write(out, value.iconUrl);
+            out.name("uri");
+            stringAdapter.write(out, value.uri);
+            out.name("fallback");
+            stringAdapter.write(out, value.fallback);
+            out.name("size");
+            stringAdapter.write(out, value.size);
+            out.name("type");
+            stringAdapter.write(out, value.type);
+            out.name("payload");
+            stringAdapter.write(out, value.payload);
+            out.name("metadata");
+            metadataAdapter.write(out, value.metadata);
+            out.name("amount");
+            longAdapter.write(out, value.amount);
+            out.name("state");
+            stringAdapter.write(out, value.state);
+            out.name("currency");
+            stringAdapter.write(out, value.currency);
+            out.name("default");
+            booleanAdapter.write(out, value.isDefault);
+            out.endObject();
+        }
+
+        @Override
+        public MessageActionDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            MessageActionDto action = new MessageActionDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "_id":
+                        action.id = stringAdapter.read(in);
+                        break;
+                    case "text":
+                        action.text = stringAdapter.read(in);
+                        break;
+                    case "iconUrl":
+                        action.iconUrl = stringAdapter.read(in);
+                        break;
+                    case "uri":
+                        action.uri = stringAdapter.read(in);
+                        break;
+                    case "fallback":
+                        action.fallback = stringAdapter.read(in);
+                        break;
+                    case "size":
+                        action.size = stringAdapter.read(in);
+                        break;
+                    case "type":
+                        action.type = stringAdapter.read(in);
+                        break;
+                    case "payload":
+                        action.payload = stringAdapter.read(in);
+                        break;
+                    case "metadata":
+                        action.metadata = metadataAdapter.read(in);
+                        break;
+                    case "amount":
+                        Long amount = longAdapter.read(in);
+                        if (amount != null) {
+                            action.amount = amount;
+                        }
+                        break;
+                    case "state":
+                        action.state = stringAdapter.read(in);
+                        break;
+                    case "currency":
+                        action.currency = stringAdapter.read(in);
+                        break;
+                    case "default":
+                        Boolean isDefault = booleanAdapter.read(in);
+                        if (isDefault != null) {
+                            action.isDefault = isDefault;
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return action;
+        }
+    }
 }
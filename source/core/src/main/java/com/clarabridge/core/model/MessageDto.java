@@ -2,8 +2,15 @@ package com.clarabridge.core.model;
 
 import androidx.annotation.NonNull;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -414,4 +421,195 @@ public class MessageDto implements Serializable, Comparable<MessageDto> {
 
         return received.compareTo(messageDto.getReceived());
     }
+
+    /**
+     * A {@link TypeAdapter} binding the fields of {@link MessageDto} without reflection.
+     */
+    static final class GsonTypeAdapter extends TypeAdapter<MessageDto> {
+
+        private final boolean serializeLocalFields;
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<Double> doubleAdapter;
+        private final TypeAdapter<Long> longAdapter;
+        private final TypeAdapter<Boolean> booleanAdapter;
+        private final TypeAdapter<Map<String, Object>> metadataAdapter;
+        private final TypeAdapter<CoordinatesDto> coordinatesAdapter;
+        private final TypeAdapter<List<MessageActionDto>> actionsAdapter;
+        private final TypeAdapter<List<MessageItemDto>> itemsAdapter;
+        private final TypeAdapter<DisplaySettingsDto> displaySettingsAdapter;
+        private final TypeAdapter<SourceDto> sourceAdapter;
+        private final TypeAdapter<Status> statusAdapter;
+
+        GsonTypeAdapter(Gson gson, boolean serializeLocalFields) {
+            this.serializeLocalFields = serializeLocalFields;
+            stringAdapter = gson.getAdapter(String.class);
+            doubleAdapter = gson.getAdapter(Double.class);
+            longAdapter = gson.getAdapter(long.class);
+            booleanAdapter = gson.getAdapter(boolean.class);
+            metadataAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+            });
+            coordinatesAdapter = gson.getAdapter(CoordinatesDto.class);
+            actionsAdapter = gson.getAdapter(new TypeToken<List<MessageActionDto>>() {
+            });
+            itemsAdapter = gson.getAdapter(new TypeToken<List<MessageItemDto>>() {
+            });
+            displaySettingsAdapter = gson.getAdapter(DisplaySettingsDto.class);
+            sourceAdapter = gson.getAdapter(SourceDto.class);
+            statusAdapter = gson.getAdapter(Status.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, MessageDto value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("_id");
+            stringAdapter.write(out, value.id);
+            out.name("name");
+            stringAdapter.write(out, value.displayName);
+            out.name("role");
+            stringAdapter.write(out, value.role);
+            out.name("text");
+            stringAdapter.write(out, value.text);
+            out.name("textFallback");
+            stringAdapter.write(out, value.textFallback);
+            out.name("type");
+            stringAdapter.write(out, value.type);
+            out.name("ruleId");
+            stringAdapter.write(out, value.ruleId);
+            out.name("payload");
+            stringAdapter.write(out, value.payload);
+            out.name("metadata");
+            metadataAdapter.write(out, value.metadata);
+            out.name("received");
+            doubleAdapter.write(out, value.received);
+            out.name("authorId");
+            stringAdapter.write(out, value.userId);
+            out.name("mediaUrl");
+            stringAdapter.write(out, value.mediaUrl);
+            out.name("mediaType");
+            stringAdapter.write(out, value.mediaType);
+            out.name("mediaSize");
+            longAdapter.write(out, value.mediaSize);
+            out.name("avatarUrl");
+            stringAdapter.write(out, value.avatarUrl);
+            out.name("coordinates");
+            coordinatesAdapter.write(out, value.coordinates);
+            out.name("actions");
+            actionsAdapter.write(out, value.messageActions);
+            out.name("items");
+            itemsAdapter.write(out, value.messageItems);
+            out.name("displaySettings");
+            displaySettingsAdapter.write(out, value.displaySettings);
+            out.name("source");
+            sourceAdapter.write(out, value.source);
+
+            if (serializeLocalFields) {
+                out.name("status");
+                statusAdapter.write(out, value.status);
+                out.name("created");
+                doubleAdapter.write(out, value.created);
+                out.name("isFromCurrentUser");
+                booleanAdapter.write(out, value.isFromCurrentUser);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public MessageDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            MessageDto message = new MessageDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "_id":
+                        message.id = stringAdapter.read(in);
+                        break;
+                    case "name":
+                        message.displayName = stringAdapter.read(in);
+                        break;
+                    case "role":
+                        message.role = stringAdapter.read(in);
+                        break;
+                    case "text":
+                        message.text = stringAdapter.read(in);
+                        break;
+                    case "textFallback":
+                        message.textFallback = stringAdapter.read(in);
+                        break;
+                    case "type":
+                        message.type = stringAdapter.read(in);
+                        break;
+                    case "ruleId":
+                        message.ruleId = stringAdapter.read(in);
+                        break;
+                    case "payload":
+                        message.payload = stringAdapter.read(in);
+                        break;
+                    case "metadata":
+                        message.metadata = metadataAdapter.read(in);
+                        break;
+                    case "received":
+                        message.received = doubleAdapter.read(in);
+                        break;
+                    case "authorId":
+                        message.userId = stringAdapter.read(in);
+                        break;
+                    case "mediaUrl":
+                        message.mediaUrl = stringAdapter.read(in);
+                        break;
+                    case "mediaType":
+                        message.mediaType = stringAdapter.read(in);
+                        break;
+                    case "mediaSize":
+                        Long mediaSize = longAdapter.read(in);
+                        if (mediaSize != null) {
+                            message.mediaSize = mediaSize;
+                        }
+                        break;
+                    case "avatarUrl":
+                        message.avatarUrl = stringAdapter.read(in);
+                        break;
+                    case "coordinates":
+                        message.coordinates = coordinatesAdapter.read(in);
+                        break;
+                    case "actions":
+                        message.messageActions = actionsAdapter.read(in);
+                        break;
+                    case "items":
+                        message.messageItems = itemsAdapter.read(in);
+                        break;
+                    case "displaySettings":
+                        message.displaySettings = displaySettingsAdapter.read(in);
+                        break;
+                    case "source":
+                        message.source = sourceAdapter.read(in);
+                        break;
+                    case "status":
+                        message.status = statusAdapter.read(in);
+                        break;
+                    case "created":
+                        message.created = doubleAdapter.read(in);
+                        break;
+                    case "isFromCurrentUser":
+                        Boolean isFromCurrentUser = booleanAdapter.read(in);
+                        if (isFromCurrentUser != null) {
+                            message.isFromCurrentUser = isFromCurrentUser;
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return message;
+        }
+    }
 }
@@ -1,7 +1,14 @@
 package com.clarabridge.core.model;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -111,4 +118,87 @@ public class MessageItemDto implements Serializable {
     public void setMetadata(Map<String, Object> metadata) {
         this.metadata = metadata;
     }
+
+    /**
+     * A {@link TypeAdapter} binding the fields of {@link MessageItemDto} without reflection.
+     */
+    static final class GsonTypeAdapter extends TypeAdapter<MessageItemDto> {
+
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<List<MessageActionDto>> actionsAdapter;
+        private final TypeAdapter<Map<String, Object>> metadataAdapter;
+
+        GsonTypeAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+            actionsAdapter = gson.getAdapter(new TypeToken<List<MessageActionDto>>() {
+            });
+            metadataAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+            });
+        }
+
+        @Override
+        public void write(JsonWriter out, MessageItemDto value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("title");
+            stringAdapter.write(out, value.title);
+            out.name("description");
+            stringAdapter.write(out, value.description);
+            out.name("mediaUrl");
+            stringAdapter.write(out, value.mediaUrl);
+            out.name("mediaType");
+            stringAdapter.write(out, value.mediaType);
+            out.name("size");
+            stringAdapter.write(out, value.size);
+            out.name("actions");
+            actionsAdapter.write(out, value.messageActions);
+            out.name("metadata");
+            metadataAdapter.write(out, value.metadata);
+            out.endObject();
+        }
+
+        @Override
+        public MessageItemDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            MessageItemDto item = new MessageItemDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "title":
+                        item.title = stringAdapter.read(in);
+                        break;
+                    case "description":
+                        item.description = stringAdapter.read(in);
+                        break;
+                    case "mediaUrl":
+                        item.mediaUrl = stringAdapter.read(in);
+                        break;
+                    case "mediaType":
+                        item.mediaType = stringAdapter.read(in);
+                        break;
+                    case "size":
+                        item.size = stringAdapter.read(in);
+                        break;
+                    case "actions":
+                        item.messageActions = actionsAdapter.read(in);
+                        break;
+                    case "metadata":
+                        item.metadata = metadataAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    }
 }
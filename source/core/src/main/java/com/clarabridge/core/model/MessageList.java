@@ -0,0 +1,273 @@
+package com.clarabridge.core.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.clarabridge.core.utils.StringUtils;
+
+/**
+ * A list of {@link MessageDto} that keeps an index of its messages by {@link MessageDto#getId()}
+ * and {@link MessageDto#getCreated()}, so that a message equal to another one can be found in
+ * constant time instead of scanning the whole list.
+ * <p>
+ * Messages that had no ID when they were added are kept aside and moved to the index once the
+ * server assigns them one, as that is the only identifying field that changes after a message is
+ * added to a conversation.
+ * <p>
+ * This list is not synchronized, see {@link ConversationDto#getMessages()}.
+ */
+final class MessageList extends AbstractList<MessageDto> implements RandomAccess, Serializable {
+
+    private final ArrayList<MessageDto> messages;
+    private transient Map<String, MessageDto> messagesById;
+    private transient Map<MessageDto, String> indexedIds;
+    private transient Map<Double, MessageDto> messagesByCreated;
+    private transient List<MessageDto> messagesWithoutId;
+    /**
+     * The number of messages left out of the index because another message has the same key
+     */
+    private transient int shadowedMessages;
+
+    MessageList(@Nullable Collection<MessageDto> messages) {
+        this.messages = messages != null ? new ArrayList<>(messages) : new ArrayList<MessageDto>();
+        buildIndex();
+    }
+
+    /**
+     * Finds the message equal to the given one, as defined by {@link MessageDto#equals(Object)}.
+     *
+     * @param message the message to look for
+     * @return the message of this list equal to the given one, or null if there is none
+     */
+    @Nullable
+    MessageDto find(@NonNull MessageDto message) {
+        indexAssignedIds();
+
+        String id = message.getId();
+        if (id != null) {
+            MessageDto candidate = messagesById.get(id);
+
+            if (candidate != null) {
+                if (id.equals(candidate.getId())) {
+                    return candidate;
+                }
+
+                // The ID of the candidate was cleared or replaced since it was indexed
+                messagesById.remove(id);
+                indexedIds.remove(candidate);
+                indexId(candidate);
+
+                if (shadowedMessages > 0) {
+                    buildIndex();
+                    return find(message);
+                }
+            }
+        }
+
+        Double created = message.getCreated();
+        if (created != null) {
+            MessageDto candidate = messagesByCreated.get(created);
+
+            if (candidate != null && candidate.equals(message)) {
+                return candidate;
+            }
+        }
+
+        for (MessageDto candidate : messagesWithoutId) {
+            if (candidate.equals(message)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param text the text to look for
+     * @return true if a message without an ID has the given text, false otherwise
+     */
+    boolean containsMessageWithoutId(@Nullable String text) {
+        indexAssignedIds();
+
+        for (MessageDto candidate : messagesWithoutId) {
+            if (StringUtils.isEqual(candidate.getText(), text)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public MessageDto get(int index) {
+        return messages.get(index);
+    }
+
+    @Override
+    public int size() {
+        return messages.size();
+    }
+
+    @Override
+    public MessageDto set(int index, MessageDto element) {
+        MessageDto previous = messages.set(index, element);
+
+        if (previous != element && !unindex(previous)) {
+            index(element);
+        }
+
+        return previous;
+    }
+
+    @Override
+    public void add(int index, MessageDto element) {
+        messages.add(index, element);
+        index(element);
+    }
+
+    @Override
+    public MessageDto remove(int index) {
+        MessageDto previous = messages.remove(index);
+        unindex(previous);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        messages.clear();
+        buildIndex();
+    }
+
+    /**
+     * Sorts the messages without going through {@link #set(int, MessageDto)}, as the index does
+     * not depend on their order. {@link Collections#sort(List)} delegates to this method where
+     * {@code List.sort} is available.
+     *
+     * @param comparator the comparator of the messages, or null to use their natural order
+     */
+    public void sort(Comparator<? super MessageDto> comparator) {
+        Collections.sort(messages, comparator);
+        modCount++;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof MessageDto && find((MessageDto) o) != null;
+    }
+
+    private void buildIndex() {
+        messagesById = new HashMap<>();
+        indexedIds = new IdentityHashMap<>();
+        messagesByCreated = new HashMap<>();
+        messagesWithoutId = new ArrayList<>();
+        shadowedMessages = 0;
+
+        for (MessageDto message : messages) {
+            index(message);
+        }
+    }
+
+    private void index(@Nullable MessageDto message) {
+        if (message == null) {
+            return;
+        }
+
+        indexId(message);
+
+        Double created = message.getCreated();
+        if (created != null) {
+            if (!messagesByCreated.containsKey(created)) {
+                messagesByCreated.put(created, message);
+            } else {
+                shadowedMessages++;
+            }
+        }
+    }
+
+    private void indexId(MessageDto message) {
+        String id = message.getId();
+
+        if (id == null) {
+            messagesWithoutId.add(message);
+        } else if (!messagesById.containsKey(id)) {
+            messagesById.put(id, message);
+            indexedIds.put(message, id);
+        } else {
+            shadowedMessages++;
+        }
+    }
+
+    /**
+     * Removes a message that is no longer in the list from the index.
+     *
+     * @param message the removed message
+     * @return true if the whole index was rebuilt, false otherwise
+     */
+    private boolean unindex(@Nullable MessageDto message) {
+        if (message == null) {
+            return false;
+        }
+
+        boolean removedKey = false;
+
+        // The ID of the message may have changed since it was indexed
+        String id = indexedIds.remove(message);
+        if (id != null && messagesById.get(id) == message) {
+            messagesById.remove(id);
+            removedKey = true;
+        }
+
+        Double created = message.getCreated();
+        if (created != null && messagesByCreated.get(created) == message) {
+            messagesByCreated.remove(created);
+            removedKey = true;
+        }
+
+        if (removedKey && shadowedMessages > 0) {
+            // Another message with the same key may have to take the place of the removed one
+            buildIndex();
+            return true;
+        }
+
+        for (Iterator<MessageDto> it = messagesWithoutId.iterator(); it.hasNext(); ) {
+            if (it.next() == message) {
+                it.remove();
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the messages that were assigned an ID since they were added to the index of IDs.
+     */
+    private void indexAssignedIds() {
+        for (Iterator<MessageDto> it = messagesWithoutId.iterator(); it.hasNext(); ) {
+            MessageDto message = it.next();
+
+            if (message.getId() != null) {
+                it.remove();
+                indexId(message);
+            }
+        }
+    }
+
+    private Object writeReplace() {
+        // Read back as a plain list, which is indexed again when the conversation is used
+        return new ArrayList<>(messages);
+    }
+}
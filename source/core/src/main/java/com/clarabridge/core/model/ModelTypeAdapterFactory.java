@@ -0,0 +1,51 @@
+package com.clarabridge.core.model;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import com.clarabridge.core.annotation.LocalField;
+
+/**
+ * A {@link TypeAdapterFactory} providing hand written {@link TypeAdapter}s for the models that are
+ * parsed and stored most often, so that {@link Gson} does not need to bind their fields through
+ * reflection.
+ * <p>
+ * The adapters produce and accept the same JSON as the reflective adapters would, so the
+ * {@link com.google.gson.annotations.SerializedName} of every field must be kept in sync with the
+ * adapter of its model.
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final boolean serializeLocalFields;
+
+    /**
+     * Constructs an instance of {@link ModelTypeAdapterFactory}
+     *
+     * @param serializeLocalFields true if fields annotated with {@link LocalField} should be
+     *                             serialized, false to skip them in the same way as an
+     *                             exclusion strategy for network requests would
+     */
+    public ModelTypeAdapterFactory(boolean serializeLocalFields) {
+        this.serializeLocalFields = serializeLocalFields;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+
+        if (rawType == MessageDto.class) {
+            return (TypeAdapter<T>) new MessageDto.GsonTypeAdapter(gson, serializeLocalFields);
+        } else if (rawType == MessageActionDto.class) {
+            return (TypeAdapter<T>) new MessageActionDto.GsonTypeAdapter(gson);
+        } else if (rawType == MessageItemDto.class) {
+            return (TypeAdapter<T>) new MessageItemDto.GsonTypeAdapter(gson);
+        } else if (rawType == ParticipantDto.class) {
+            return (TypeAdapter<T>) new ParticipantDto.GsonTypeAdapter(gson);
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.clarabridge.core.model;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The messages of a conversation waiting to be sent, in the order they were sent by the user.
+ */
+public class OutboxDto implements Serializable {
+
+    @SerializedName("entries")
+    private List<OutboxEntryDto> entries = new ArrayList<>();
+
+    public OutboxDto() {
+    }
+
+    public OutboxDto(@NonNull List<OutboxEntryDto> entries) {
+        this.entries = entries;
+    }
+
+    @NonNull
+    public List<OutboxEntryDto> getEntries() {
+        return entries != null ? entries : new ArrayList<OutboxEntryDto>();
+    }
+
+    public void setEntries(List<OutboxEntryDto> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,76 @@
+package com.clarabridge.core.model;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.io.Serializable;
+
+/**
+ * A message waiting in the outbox of a conversation to be sent, with the state needed to retry it.
+ */
+public class OutboxEntryDto implements Serializable {
+
+    @SerializedName("message")
+    private MessageDto message;
+
+    @SerializedName("conversationId")
+    private String conversationId;
+
+    @SerializedName("retryCount")
+    private int retryCount;
+
+    @SerializedName("nextAttemptAt")
+    private long nextAttemptAt;
+
+    public OutboxEntryDto() {
+    }
+
+    public OutboxEntryDto(@NonNull MessageDto message, String conversationId) {
+        this.message = message;
+        this.conversationId = conversationId;
+    }
+
+    public MessageDto getMessage() {
+        return message;
+    }
+
+    public void setMessage(MessageDto message) {
+        this.message = message;
+    }
+
+    /**
+     * @return the ID of the conversation the message is sent to, or null if the message was sent
+     * before a conversation existed
+     */
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    /**
+     * @return the number of times sending the message failed
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    /**
+     * @return the time before which the message should not be sent again, in milliseconds since
+     * the epoch, or 0 if it can be sent right away
+     */
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(long nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+}
@@ -2,7 +2,14 @@ package com.clarabridge.core.model;
 
 import androidx.annotation.Nullable;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Describes a participant of a conversation
@@ -106,4 +113,73 @@ public class ParticipantDto {
         result = 31 * result + (lastRead != null ? lastRead.hashCode() : 0);
         return result;
     }
+
+    /**
+     * A {@link TypeAdapter} binding the fields of {@link ParticipantDto} without reflection.
+     */
+    static final class GsonTypeAdapter extends TypeAdapter<ParticipantDto> {
+
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<Integer> intAdapter;
+        private final TypeAdapter<Double> doubleAdapter;
+
+        GsonTypeAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+            intAdapter = gson.getAdapter(int.class);
+            doubleAdapter = gson.getAdapter(Double.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, ParticipantDto value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("_id");
+            stringAdapter.write(out, value.id);
+            out.name("appUserId");
+            stringAdapter.write(out, value.userId);
+            out.name("unreadCount");
+            intAdapter.write(out, value.unreadCount);
+            out.name("lastRead");
+            doubleAdapter.write(out, value.lastRead);
+            out.endObject();
+        }
+
+        @Override
+        public ParticipantDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ParticipantDto participant = new ParticipantDto(null, null, 0, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "_id":
+                        participant.id = stringAdapter.read(in);
+                        break;
+                    case "appUserId":
+                        participant.userId = stringAdapter.read(in);
+                        break;
+                    case "unreadCount":
+                        Integer unreadCount = intAdapter.read(in);
+                        if (unreadCount != null) {
+                            participant.unreadCount = unreadCount;
+                        }
+                        break;
+                    case "lastRead":
+                        participant.lastRead = doubleAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return participant;
+        }
+    }
 }
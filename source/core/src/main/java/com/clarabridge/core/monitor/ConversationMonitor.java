@@ -7,12 +7,16 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.saulpower.fayeclient.FayeClient;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.net.URI;
 
 import com.clarabridge.core.AuthenticationCallback;
@@ -23,15 +27,22 @@ import com.clarabridge.core.Logger;
 import com.clarabridge.core.MessageType;
 import com.clarabridge.core.facade.PersistenceFacade;
 import com.clarabridge.core.facade.Serialization;
+import com.clarabridge.core.facade.StreamingSerialization;
 import com.clarabridge.core.model.ConversationEventDto;
 import com.clarabridge.core.model.MessageDto;
+import com.clarabridge.core.model.RetryConfigurationDto;
 import com.clarabridge.core.model.SourceDto;
+import com.clarabridge.core.utils.RealtimeThread;
 import com.clarabridge.core.utils.StringUtils;
 
 /**
  * An implementation of {@link FayeClient.FayeListener} that manages the connection with the Faye
  * client and listen to its messages, pre-processing them before calling delegating the calls to
  * the {@link Delegate}.
+ * <p>
+ * Realtime messages are parsed and the {@link Delegate} is invoked on a dedicated realtime thread,
+ * unless another {@link Handler} is given, so that neither blocks the main thread. The
+ * {@link AuthenticationDelegate} is still invoked on the main thread.
  *
  * @see Delegate
  * @see WsMessageDto
@@ -39,6 +50,7 @@ import com.clarabridge.core.utils.StringUtils;
 public class ConversationMonitor implements FayeClient.FayeListener {
 
     private static final String LOG_TAG = "ConversationMonitor";
+    private static final String KEY_EVENTS = "events";
 
     public interface Delegate {
 
@@ -96,8 +108,10 @@ public class ConversationMonitor implements FayeClient.FayeListener {
     private final Delegate delegate;
     private final AuthenticationDelegate authenticationDelegate;
     private final PersistenceFacade persistenceFacade;
+    private final Handler handler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private boolean connected;
+    private volatile boolean connected;
 
     ConversationMonitor(
             Serialization serializer,
@@ -111,7 +125,11 @@ public class ConversationMonitor implements FayeClient.FayeListener {
             Delegate delegate,
             AuthenticationDelegate authenticationDelegate,
             int maxConnectionAttempts,
-            long retryInterval) {
+            long retryInterval,
+            boolean compressionEnabled,
+            boolean compressionContextTakeover,
+            @Nullable RetryConfigurationDto retryConfiguration,
+            @Nullable Handler handler) {
 
         this.serializer = serializer;
         this.appId = appId;
@@ -121,6 +139,7 @@ public class ConversationMonitor implements FayeClient.FayeListener {
         this.delegate = delegate;
         this.authenticationDelegate = authenticationDelegate;
         this.persistenceFacade = persistenceFacade;
+        this.handler = handler != null ? handler : new Handler(RealtimeThread.get().getLooper());
 
         if (fayeClient == null) {
             // FayeClient internally expects the scheme to be "wss" to establish a secure connection
@@ -129,11 +148,17 @@ public class ConversationMonitor implements FayeClient.FayeListener {
                     : host;
 
             this.fayeClient = new FayeClient(
-                    new Handler(Looper.getMainLooper()),
+                    this.handler,
                     URI.create(fayeUrl),
                     String.format("/sdk/apps/%s/appusers/%s", appId, userId),
                     maxConnectionAttempts,
                     retryInterval);
+            this.fayeClient.setCompression(compressionEnabled, compressionContextTakeover);
+
+            if (retryConfiguration != null) {
+                this.fayeClient.setReconnectBackoff(retryConfiguration.getBackoffMultiplier(),
+                        retryConfiguration.getRegularInterval() * 1000L);
+            }
         } else {
             this.fayeClient = fayeClient;
         }
@@ -164,14 +189,25 @@ public class ConversationMonitor implements FayeClient.FayeListener {
     }
 
     @Override
-    public void onAuthenticationError(AuthenticationError authenticationError) {
+    public void onAuthenticationError(final AuthenticationError authenticationError) {
         Logger.d(LOG_TAG, "onAuthenticationError: " + authenticationError);
         connected = false;
-        authenticationDelegate.onInvalidAuth(authenticationError, new AuthenticationCallback() {
+
+        mainHandler.post(new Runnable() {
             @Override
-            public void updateToken(@NonNull String jwt) {
-                persistenceFacade.saveJwt(jwt);
-                fayeClient.resetWebSocketConnection();
+            public void run() {
+                authenticationDelegate.onInvalidAuth(authenticationError, new AuthenticationCallback() {
+                    @Override
+                    public void updateToken(@NonNull String jwt) {
+                        persistenceFacade.saveJwt(jwt);
+                        handler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                fayeClient.resetWebSocketConnection();
+                            }
+                        });
+                    }
+                });
             }
         });
     }
@@ -187,35 +223,57 @@ public class ConversationMonitor implements FayeClient.FayeListener {
     }
 
     @Override
-    public void messageReceived(JSONObject jsonObject) {
-        Logger.d(LOG_TAG, "Message received: " + jsonObject.toString());
-
-        JSONArray events;
-        try {
-            events = jsonObject.getJSONArray("events");
-
-            for (int i = 0; i < events.length(); i++) {
-                JSONObject event;
-                try {
-                    event = events.getJSONObject(i);
-                    processEvent(event);
-                } catch (JSONException exception) {
-                    Logger.e(LOG_TAG, "Unable to process event.", exception);
+    public void messageReceived(JsonReader data) throws IOException {
+        data.beginObject();
+
+        while (data.hasNext()) {
+            if (KEY_EVENTS.equals(data.nextName()) && data.peek() == JsonToken.BEGIN_ARRAY) {
+                data.beginArray();
+
+                while (data.hasNext()) {
+                    processEvent(readEvent(data));
                 }
+
+                data.endArray();
+            } else {
+                data.skipValue();
             }
-        } catch (JSONException exception) {
-            Logger.e(LOG_TAG, "Unable to process events: " + jsonObject.toString(), exception);
         }
+
+        data.endObject();
     }
 
     /**
-     * Entry point to process any event received from Faye.
+     * Reads the next event of the events array. The event is parsed into a {@link JsonElement}
+     * before being bound, so that an event that can not be bound is skipped without losing the
+     * position of the {@link JsonReader} in the rest of the frame.
      *
-     * @param event the {@link JSONObject} representation of the event received
+     * @param reader the {@link JsonReader} positioned at the event
+     * @return the {@link WsMessageDto} read, or null if the event was not an object or invalid
+     * @throws IOException if the event could not be read
      */
-    private void processEvent(JSONObject event) {
-        WsMessageDto message = serializer.deserialize(event.toString(), WsMessageDto.class);
+    @Nullable
+    private WsMessageDto readEvent(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        JsonElement event = JsonParser.parseReader(reader);
+
+        if (serializer instanceof StreamingSerialization) {
+            return ((StreamingSerialization) serializer).deserialize(event, WsMessageDto.class);
+        }
+
+        return serializer.deserialize(event.toString(), WsMessageDto.class);
+    }
 
+    /**
+     * Entry point to process any event received from Faye.
+     *
+     * @param message the {@link WsMessageDto} representation of the event received
+     */
+    private void processEvent(@Nullable WsMessageDto message) {
         if (message == null) {
             return;
         }
@@ -398,6 +456,29 @@ public class ConversationMonitor implements FayeClient.FayeListener {
         return connected;
     }
 
+    /**
+     * @return the round trip time of the last heartbeat of the WebSocket connection, in
+     * milliseconds, or -1 if it was not measured yet
+     */
+    public long getRoundTripTime() {
+        return fayeClient.getRoundTripTime();
+    }
+
+    /**
+     * @return the number of frames waiting to be written to the WebSocket connection
+     */
+    public int getSendQueueDepth() {
+        return fayeClient.getSendQueueDepth();
+    }
+
+    /**
+     * @return the time taken to write the last batch of frames to the WebSocket connection, in
+     * milliseconds, or -1 if nothing was written yet
+     */
+    public long getWriteLatency() {
+        return fayeClient.getWriteLatency();
+    }
+
     /**
      * @return the app ID used to create this instance of {@link ConversationMonitor}
      */
@@ -409,6 +490,15 @@ public class ConversationMonitor implements FayeClient.FayeListener {
      * Create a connection with the WebSocket server if this monitor was not already connected.
      */
     public void resume() {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                connect();
+            }
+        });
+    }
+
+    private void connect() {
         if (!connected) {
             JSONObject args = new JSONObject();
 
@@ -433,28 +523,72 @@ public class ConversationMonitor implements FayeClient.FayeListener {
      * Disconnects from the WebSocket server.
      */
     public void pause() {
-        fayeClient.disconnectFromServer();
         connected = false;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                fayeClient.disconnectFromServer();
+            }
+        });
     }
 
     /**
      * Disconnects from the WebSocket server and closes the connection.
      */
     public void close() {
-        fayeClient.disconnectFromServer();
-        fayeClient.closeWebSocketConnection();
         connected = false;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                fayeClient.disconnectFromServer();
+                fayeClient.closeWebSocketConnection();
+            }
+        });
     }
 
     /**
      * Reset the connection with the WebSocket server.
      */
     public void reset() {
-        if (!connected) {
-            return;
-        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (connected) {
+                    fayeClient.resetWebSocketConnection();
+                }
+            }
+        });
+    }
+
+    /**
+     * Subscribes to an additional channel over the connection of this monitor, such as the
+     * channel of a single conversation.
+     *
+     * @param channel  the channel to subscribe to
+     * @param listener the listener of the messages published to the channel, invoked on the
+     *                 thread that processes realtime messages
+     */
+    public void subscribe(final String channel, final FayeClient.ChannelListener listener) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                fayeClient.subscribe(channel, listener);
+            }
+        });
+    }
 
-        fayeClient.resetWebSocketConnection();
+    /**
+     * Cancels a subscription made with {@link #subscribe(String, FayeClient.ChannelListener)}.
+     *
+     * @param channel the channel to unsubscribe from
+     */
+    public void unsubscribe(final String channel) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                fayeClient.unsubscribe(channel);
+            }
+        });
     }
 
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
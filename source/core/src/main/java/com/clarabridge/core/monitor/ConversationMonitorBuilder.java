@@ -1,5 +1,7 @@
 package com.clarabridge.core.monitor;
 
+import android.os.Handler;
+
 import androidx.annotation.Nullable;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
@@ -13,6 +15,7 @@ import com.clarabridge.core.Logger;
 import com.clarabridge.core.facade.PersistenceFacade;
 import com.clarabridge.core.facade.Serialization;
 import com.clarabridge.core.facade.impl.LocalGsonSerializer;
+import com.clarabridge.core.model.RetryConfigurationDto;
 import com.clarabridge.core.utils.StringUtils;
 
 import static androidx.annotation.VisibleForTesting.NONE;
@@ -40,6 +43,12 @@ public class ConversationMonitorBuilder {
     private AuthenticationDelegate authenticationDelegate = EMPTY_AUTH_DELEGATE;
     private int maxConnectionAttempts;
     private long retryInterval;
+    private boolean compressionEnabled;
+    private boolean compressionContextTakeover = true;
+    @Nullable
+    private RetryConfigurationDto retryConfiguration;
+    @Nullable
+    private Handler handler;
 
     public ConversationMonitorBuilder() {
     }
@@ -60,7 +69,8 @@ public class ConversationMonitorBuilder {
         }
 
         return new ConversationMonitor(serializer, appId, userId, clientId, persistenceFacade, sessionToken,
-                host, fayeClient, delegate, authenticationDelegate, maxConnectionAttempts, retryInterval);
+                host, fayeClient, delegate, authenticationDelegate, maxConnectionAttempts, retryInterval,
+                compressionEnabled, compressionContextTakeover, retryConfiguration, handler);
     }
 
     public ConversationMonitorBuilder setAppId(final String appId) {
@@ -121,6 +131,36 @@ public class ConversationMonitorBuilder {
         return this;
     }
 
+    public ConversationMonitorBuilder setCompression(final boolean enabled, final boolean contextTakeover) {
+        this.compressionEnabled = enabled;
+        this.compressionContextTakeover = contextTakeover;
+        return this;
+    }
+
+    /**
+     * Sets the {@link RetryConfigurationDto} from which the backoff multiplier and the maximum
+     * delay between reconnection attempts are taken.
+     *
+     * @param retryConfiguration the retry configuration of the app, or null to use the defaults
+     * @return this builder
+     */
+    public ConversationMonitorBuilder setRetryConfiguration(@Nullable final RetryConfigurationDto retryConfiguration) {
+        this.retryConfiguration = retryConfiguration;
+        return this;
+    }
+
+    /**
+     * Sets the {@link Handler} on which realtime messages are parsed and the
+     * {@link ConversationMonitor.Delegate} is invoked. A dedicated thread is used if none is set.
+     *
+     * @param handler the {@link Handler} to process realtime messages on
+     * @return this builder
+     */
+    public ConversationMonitorBuilder setHandler(@Nullable final Handler handler) {
+        this.handler = handler;
+        return this;
+    }
+
     @VisibleForTesting(otherwise = NONE)
     ConversationMonitorBuilder setFayeClient(final FayeClient fayeClient) {
         this.fayeClient = fayeClient;
@@ -10,6 +10,7 @@ import java.util.Set;
 import javax.inject.Inject;
 
 import com.clarabridge.core.di.NetworkHeaderQualifier;
+import com.clarabridge.core.model.ModelTypeAdapterFactory;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
@@ -71,6 +72,7 @@ public class ApiFactory {
     private Gson buildGson() {
         return new GsonBuilder()
                 .addSerializationExclusionStrategy(new LocalFieldExclusionStrategy())
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(false))
                 .create();
     }
 
@@ -37,4 +37,38 @@ public class AuthRetryCallbackFactory {
 
         return new AuthRetryCallback<>(callback, authenticationDelegate, authenticationCallback);
     }
+
+    /**
+     * Creates a new instance of {@link PostMessageCallback}.
+     *
+     * @param callback               the {@link ClarabridgeChatApiClientCallback} to be called when the request
+     *                               is finished
+     * @param authenticationCallback the {@link AuthenticationCallback} to be called if an authentication
+     *                               error happens
+     * @param <T>                    the type of the object being returned in the response
+     * @return a new instance of {@link PostMessageCallback}
+     */
+    <T> Callback<T> createPostMessageCallback(ClarabridgeChatApiClientCallback<T> callback,
+                                              @Nullable AuthenticationCallback authenticationCallback) {
+
+        return new PostMessageCallback<>(callback, authenticationDelegate, authenticationCallback);
+    }
+
+    /**
+     * Creates a new instance of {@link UploadRetryCallback}.
+     *
+     * @param callback               the {@link ClarabridgeChatApiClientCallback} to be called when the request
+     *                               is finished
+     * @param authenticationCallback the {@link AuthenticationCallback} to be called if an authentication
+     *                               error happens
+     * @param requestBody            the {@link StreamingRequestBody} of the file being uploaded
+     * @param <T>                    the type of the object being returned in the response
+     * @return a new instance of {@link UploadRetryCallback}
+     */
+    <T> Callback<T> createUploadCallback(ClarabridgeChatApiClientCallback<T> callback,
+                                         @Nullable AuthenticationCallback authenticationCallback,
+                                         StreamingRequestBody requestBody) {
+
+        return new UploadRetryCallback<>(callback, authenticationDelegate, authenticationCallback, requestBody);
+    }
 }
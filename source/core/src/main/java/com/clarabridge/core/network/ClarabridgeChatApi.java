@@ -140,7 +140,8 @@ interface ClarabridgeChatApi {
     @GET("v2/apps/{appId}/conversations/{conversationId}/messages")
     Call<ConversationResponseDto> getMessages(
             @Path("appId") String appId,
-            @Path("conversationId") String conversationId);
+            @Path("conversationId") String conversationId,
+            @Query("after") String after);
 
     @Headers("Content-Type:application/json")
     @POST("v2/apps/{appId}/conversations/{conversationId}/messages")
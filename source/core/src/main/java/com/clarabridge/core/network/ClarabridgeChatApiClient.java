@@ -5,12 +5,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
@@ -489,6 +486,22 @@ public class ClarabridgeChatApiClient {
     public void getMessages(
             String conversationId,
             ClarabridgeChatApiClientCallback<ConversationResponseDto> callback) {
+        getMessages(conversationId, null, callback);
+    }
+
+    /**
+     * Retrieves the messages of a conversation received after the given timestamp, invoking the
+     * callback when the request is finished.
+     *
+     * @param conversationId the id of the conversation to be retrieved
+     * @param after          the timestamp after which messages are retrieved, or null to retrieve
+     *                       the most recent messages
+     * @param callback       an instance of {@link ClarabridgeChatApiClientCallback}&lt;{@link ConversationResponseDto}>
+     */
+    public void getMessages(
+            String conversationId,
+            @Nullable Double after,
+            ClarabridgeChatApiClientCallback<ConversationResponseDto> callback) {
 
         if (!configured()) {
             return;
@@ -499,12 +512,17 @@ public class ClarabridgeChatApiClient {
             return;
         }
 
-        clarabridgeChatApi.getMessages(appId, conversationId)
+        // Doubles are formatted in scientific notation past 10^7, which the server does not accept
+        String formattedAfter = after != null ? BigDecimal.valueOf(after).toPlainString() : null;
+
+        clarabridgeChatApi.getMessages(appId, conversationId, formattedAfter)
                 .enqueue(authRetryCallbackFactory.createCallback(callback, authenticationCallback));
     }
 
     /**
-     * Sends a message to a conversation, invoking the callback when the request is finished.
+     * Sends a message to a conversation, invoking the callback when the request is finished. A
+     * network error that may have happened after the message reached the server is reported with
+     * {@link ClarabridgeChatApiClientCallback#STATUS_NO_RESPONSE}, see {@link PostMessageCallback}.
      *
      * @param conversationId the id of the conversation
      * @param message        the message to be sent
@@ -535,7 +553,7 @@ public class ClarabridgeChatApiClient {
         PostNewMessageDto newMessageDto = new PostNewMessageDto(messageDto, authorDto);
 
         clarabridgeChatApi.postMessage(appId, conversationId, newMessageDto)
-                .enqueue(authRetryCallbackFactory.createCallback(callback, authenticationCallback));
+                .enqueue(authRetryCallbackFactory.createPostMessageCallback(callback, authenticationCallback));
     }
 
     /**
@@ -594,6 +612,9 @@ public class ClarabridgeChatApiClient {
 
     /**
      * Uploads an image to a conversation, invoking the callback when the request is finished.
+     * <p>
+     * If the {@link Message} also has a file, it is expected to be the image already encoded as a
+     * JPEG and is streamed to the request. Otherwise the image is compressed in memory.
      *
      * @param conversationId the id of the conversation
      * @param imageMessage   the {@link Message} containing the image being sent
@@ -610,6 +631,18 @@ public class ClarabridgeChatApiClient {
             return;
         }
 
+        String fileName = "clarabridgeChat-image.jpg";
+        MediaType mediaType = MediaType.parse("image/jpeg");
+        File file = imageMessage.getFile();
+
+        if (file != null && file.canRead()) {
+            StreamingRequestBody source = new StreamingRequestBody(mediaType, file, null);
+
+            uploadFile(conversationId, imageMessage.getMetadata(), userId, fileName, source,
+                    authRetryCallbackFactory.createUploadCallback(callback, authenticationCallback, source));
+            return;
+        }
+
         Bitmap image = imageMessage.getImage();
 
         if (image == null) {
@@ -622,11 +655,9 @@ public class ClarabridgeChatApiClient {
         image.compress(Bitmap.CompressFormat.JPEG, 75, outputStream);
         byte[] source = outputStream.toByteArray();
 
-        String fileName = "clarabridgeChat-image.jpg";
-        MediaType mediaType = MediaType.parse("image/jpeg");
-
         uploadFile(conversationId, imageMessage.getMetadata(), userId, fileName,
-                mediaType, source, callback);
+                RequestBody.create(mediaType, source),
+                authRetryCallbackFactory.createCallback(callback, authenticationCallback));
     }
 
     /**
@@ -642,6 +673,28 @@ public class ClarabridgeChatApiClient {
             Message fileMessage,
             String userId,
             ClarabridgeChatApiClientCallback<FileUploadDto> callback) {
+        uploadFile(conversationId, fileMessage, userId, null, callback);
+    }
+
+    /**
+     * Uploads a file to a conversation, invoking the callback when the request is finished.
+     * <p>
+     * The file is streamed to the request rather than read into memory, and the upload is
+     * retried if it is interrupted by a network error before the whole file is sent.
+     *
+     * @param conversationId   the id of the conversation
+     * @param fileMessage      the {@link Message} containing the file being sent
+     * @param userId           the id of the user
+     * @param progressListener an optional {@link UploadProgressListener} to notify of the progress
+     *                         of the upload
+     * @param callback         an instance of {@link ClarabridgeChatApiClientCallback}&lt;{@link FileUploadDto}>
+     */
+    public void uploadFile(
+            String conversationId,
+            Message fileMessage,
+            String userId,
+            @Nullable UploadProgressListener progressListener,
+            ClarabridgeChatApiClientCallback<FileUploadDto> callback) {
 
         if (!configured()) {
             return;
@@ -654,35 +707,31 @@ public class ClarabridgeChatApiClient {
             return;
         }
 
-        try {
-            byte[] source = new byte[(int) file.length()];
-            BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(file));
-            DataInputStream dataInputStream = new DataInputStream(bufferedInputStream);
-            dataInputStream.readFully(source);
-            dataInputStream.close();
-
-            String fileName = file.getName();
-            MediaType mediaType = MediaType.parse(FileUtils.getMimeType(file));
-
-            uploadFile(conversationId, fileMessage.getMetadata(), userId, fileName,
-                    mediaType, source, callback);
-        } catch (IOException ioException) {
-            Logger.e(LOG_TAG, "Error reading file to upload", ioException);
+        if (!file.canRead()) {
+            Logger.e(LOG_TAG, "Unable to read file to upload %s", file.getName());
             callback.onResult(false, 400, null);
+            return;
         }
+
+        String fileName = file.getName();
+        MediaType mediaType = MediaType.parse(FileUtils.getMimeType(file));
+
+        StreamingRequestBody source = new StreamingRequestBody(mediaType, file, progressListener);
+
+        uploadFile(conversationId, fileMessage.getMetadata(), userId, fileName, source,
+                authRetryCallbackFactory.createUploadCallback(callback, authenticationCallback, source));
     }
 
     /**
-     * Internal method to upload the byte array of a file to the backend. The callback is invoked
+     * Internal method to upload the content of a file to the backend. The callback is invoked
      * when the request is finished.
      *
      * @param conversationId  the id of the conversation
      * @param messageMetadata the metadata about the message
      * @param userId          the id of the user
      * @param fileName        the name of the file being uploaded
-     * @param mediaType       the {@link MediaType} of the file being uploaded
-     * @param source          the file being uploaded, as a byte array
-     * @param callback        an instance of {@link ClarabridgeChatApiClientCallback}&lt;{@link FileUploadDto}>
+     * @param source          the {@link RequestBody} of the file being uploaded
+     * @param callback        the {@link Callback}&lt;{@link FileUploadDto}> of the request
      */
     @VisibleForTesting
     void uploadFile(
@@ -690,22 +739,20 @@ public class ClarabridgeChatApiClient {
             Map<String, Object> messageMetadata,
             String userId,
             String fileName,
-            MediaType mediaType,
-            byte[] source,
-            ClarabridgeChatApiClientCallback<FileUploadDto> callback) {
+            RequestBody source,
+            Callback<FileUploadDto> callback) {
 
         PostAuthorDto authorDto = createAuthorDto(userId);
         PostMetadataDto metadataDto = new PostMetadataDto(messageMetadata);
-        RequestBody uploadRequestBody = RequestBody.create(mediaType, source);
 
         Call<FileUploadDto> call = clarabridgeChatApi.uploadFile(
                 appId,
                 conversationId,
                 authorDto,
                 metadataDto,
-                MultipartBody.Part.createFormData("source", fileName, uploadRequestBody));
+                MultipartBody.Part.createFormData("source", fileName, source));
 
-        call.enqueue(authRetryCallbackFactory.createCallback(callback, authenticationCallback));
+        call.enqueue(callback);
     }
     // endregion
 
@@ -13,6 +13,12 @@ import okhttp3.Response;
  */
 public interface ClarabridgeChatApiClientCallback<T> {
 
+    /**
+     * The status code of a request that failed without a response after it may have reached the
+     * server, so that its outcome is unknown
+     */
+    int STATUS_NO_RESPONSE = 0;
+
     /**
      * Invoked when a network request is finished.
      *
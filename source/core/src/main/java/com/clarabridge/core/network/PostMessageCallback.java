@@ -0,0 +1,59 @@
+package com.clarabridge.core.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import com.clarabridge.core.AuthenticationCallback;
+import com.clarabridge.core.AuthenticationDelegate;
+import retrofit2.Call;
+
+/**
+ * An {@link AuthRetryCallback} for posting messages that tells network errors that happened
+ * before the request was sent apart from those that may have happened after.
+ * <p>
+ * Only a request that was never sent can be posted again without the risk of creating the
+ * message twice. After a read timeout, for example, the server may have created the message and
+ * only the response was lost. Such failures are reported with
+ * {@link ClarabridgeChatApiClientCallback#STATUS_NO_RESPONSE} rather than as a server error, so
+ * that they are not retried.
+ *
+ * @param <T> the response type of the {@link Call}
+ */
+class PostMessageCallback<T> extends AuthRetryCallback<T> {
+
+    @Nullable
+    private final ClarabridgeChatApiClientCallback<T> callback;
+
+    PostMessageCallback(@Nullable ClarabridgeChatApiClientCallback<T> callback,
+                        @Nullable AuthenticationDelegate authenticationDelegate,
+                        @Nullable AuthenticationCallback authenticationCallback) {
+        super(callback, authenticationDelegate, authenticationCallback);
+        this.callback = callback;
+    }
+
+    @Override
+    public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+        if (isNotSent(t)) {
+            super.onFailure(call, t);
+        } else if (callback != null) {
+            callback.onResult(false, ClarabridgeChatApiClientCallback.STATUS_NO_RESPONSE, null);
+        }
+    }
+
+    /**
+     * @param t the error the request failed with
+     * @return true if the request failed while connecting to the server, before anything was sent
+     */
+    private static boolean isNotSent(Throwable t) {
+        return t instanceof ConnectException
+                || t instanceof NoRouteToHostException
+                || t instanceof UnknownHostException
+                || t instanceof SSLHandshakeException;
+    }
+}
@@ -0,0 +1,100 @@
+package com.clarabridge.core.network;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * A {@link RequestBody} that streams a file to the request in chunks instead of reading it into
+ * memory first, so that the memory used by an upload does not depend on the size of the file.
+ * <p>
+ * The file is opened again every time the body is written, which allows the request to be retried.
+ */
+class StreamingRequestBody extends RequestBody {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Nullable
+    private final MediaType mediaType;
+    private final File file;
+    private final long contentLength;
+    @Nullable
+    private final UploadProgressListener progressListener;
+
+    private volatile boolean fullyWritten;
+
+    /**
+     * @param mediaType        the {@link MediaType} of the file
+     * @param file             the file to upload
+     * @param progressListener an optional {@link UploadProgressListener} to notify of the progress
+     */
+    StreamingRequestBody(
+            @Nullable MediaType mediaType,
+            File file,
+            @Nullable UploadProgressListener progressListener) {
+        this.mediaType = mediaType;
+        this.file = file;
+        this.contentLength = file.length();
+        this.progressListener = progressListener;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mediaType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return true if the whole file was written by the last call to {@link #writeTo(BufferedSink)},
+     * false if it was interrupted or not called yet
+     */
+    boolean isFullyWritten() {
+        return fullyWritten;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        fullyWritten = false;
+
+        // Progress is reported about every percent, or every chunk for small files
+        long reportInterval = Math.max(contentLength / 100, CHUNK_SIZE);
+        long bytesWritten = 0;
+        long lastReported = 0;
+
+        Source source = Okio.source(file);
+
+        try {
+            long read;
+
+            while ((read = source.read(sink.buffer(), CHUNK_SIZE)) != -1) {
+                sink.emitCompleteSegments();
+                bytesWritten += read;
+
+                if (progressListener != null && bytesWritten - lastReported >= reportInterval) {
+                    lastReported = bytesWritten;
+                    progressListener.onProgress(bytesWritten, contentLength);
+                }
+            }
+        } finally {
+            source.close();
+        }
+
+        fullyWritten = true;
+
+        if (progressListener != null && bytesWritten != lastReported) {
+            progressListener.onProgress(bytesWritten, contentLength);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.clarabridge.core.network;
+
+/**
+ * A listener to be notified of the progress of a file being uploaded.
+ */
+public interface UploadProgressListener {
+
+    /**
+     * Invoked on the network thread as the file is being written to the request.
+     *
+     * @param bytesWritten  the number of bytes written so far
+     * @param contentLength the size of the file in bytes, or -1 if it is unknown
+     */
+    void onProgress(long bytesWritten, long contentLength);
+}
@@ -0,0 +1,106 @@
+package com.clarabridge.core.network;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Random;
+
+import com.clarabridge.core.AuthenticationCallback;
+import com.clarabridge.core.AuthenticationDelegate;
+import com.clarabridge.core.Logger;
+import com.clarabridge.core.utils.BackgroundThread;
+import retrofit2.Call;
+
+/**
+ * An {@link AuthRetryCallback} for file uploads that also retries uploads interrupted by a
+ * network error, waiting longer after every attempt.
+ * <p>
+ * An upload is only retried if the network error happened before the whole file was sent, as
+ * the server can not have created the message in that case. Retrying an upload that was fully
+ * sent could otherwise result in the file being posted twice to the conversation.
+ *
+ * @param <T> the response type of the {@link Call}
+ */
+class UploadRetryCallback<T> extends AuthRetryCallback<T> {
+
+    private static final String LOG_TAG = "UploadRetryCallback";
+
+    /**
+     * The max number of times an interrupted upload is retried
+     */
+    @VisibleForTesting
+    static final int MAX_UPLOAD_ATTEMPTS = 3;
+    private static final long BASE_RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    private final StreamingRequestBody requestBody;
+    private final Handler handler;
+    private final Random random = new Random();
+
+    /**
+     * The current number of times the upload was retried after a network error
+     */
+    @VisibleForTesting
+    int uploadAttempts = 0;
+
+    UploadRetryCallback(@Nullable ClarabridgeChatApiClientCallback<T> callback,
+                        @Nullable AuthenticationDelegate authenticationDelegate,
+                        @Nullable AuthenticationCallback authenticationCallback,
+                        @NonNull StreamingRequestBody requestBody) {
+        this(callback, authenticationDelegate, authenticationCallback, requestBody,
+                new Handler(BackgroundThread.get().getLooper()));
+    }
+
+    @VisibleForTesting
+    UploadRetryCallback(@Nullable ClarabridgeChatApiClientCallback<T> callback,
+                        @Nullable AuthenticationDelegate authenticationDelegate,
+                        @Nullable AuthenticationCallback authenticationCallback,
+                        @NonNull StreamingRequestBody requestBody,
+                        @NonNull Handler handler) {
+        super(callback, authenticationDelegate, authenticationCallback);
+        this.requestBody = requestBody;
+        this.handler = handler;
+    }
+
+    @Override
+    public void onFailure(@NonNull final Call<T> call, @NonNull Throwable t) {
+        boolean shouldRetry = !call.isCanceled()
+                && !requestBody.isFullyWritten()
+                && uploadAttempts < MAX_UPLOAD_ATTEMPTS;
+
+        if (!shouldRetry) {
+            super.onFailure(call, t);
+            return;
+        }
+
+        long delay = getRetryDelay(uploadAttempts);
+        uploadAttempts++;
+
+        Logger.w(LOG_TAG, "Upload interrupted, retrying in %d ms (attempt %d of %d): %s",
+                delay, uploadAttempts, MAX_UPLOAD_ATTEMPTS, t.getMessage());
+
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                call.clone().enqueue(UploadRetryCallback.this);
+            }
+        }, delay);
+    }
+
+    /**
+     * Picks a random delay between zero and an upper bound that doubles with every attempt, so
+     * that uploads interrupted by the same network change are not all retried at once.
+     *
+     * @param attempt the number of retries already made
+     * @return the delay before the next retry, in milliseconds
+     */
+    @VisibleForTesting
+    long getRetryDelay(int attempt) {
+        long upperBound = Math.min(BASE_RETRY_DELAY << attempt, MAX_RETRY_DELAY);
+
+        return (long) (random.nextDouble() * upperBound);
+    }
+}
@@ -29,10 +29,13 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.clarabridge.core.AuthenticationCallback;
 import com.clarabridge.core.AuthenticationDelegate;
@@ -65,6 +68,7 @@ import com.clarabridge.core.model.GetConfigDto;
 import com.clarabridge.core.model.IntegrationDto;
 import com.clarabridge.core.model.MessageActionDto;
 import com.clarabridge.core.model.MessageDto;
+import com.clarabridge.core.model.OutboxEntryDto;
 import com.clarabridge.core.model.PostAppUserConversationDto;
 import com.clarabridge.core.model.PostConversationMessageDto;
 import com.clarabridge.core.model.PostMessageDto;
@@ -80,6 +84,7 @@ import com.clarabridge.core.monitor.ConversationMonitor;
 import com.clarabridge.core.monitor.ConversationMonitorBuilder;
 import com.clarabridge.core.network.ClarabridgeChatApiClient;
 import com.clarabridge.core.network.ClarabridgeChatApiClientCallback;
+import com.clarabridge.core.network.UploadProgressListener;
 import com.clarabridge.core.utils.StringUtils;
 
 public class ClarabridgeChatService extends Service implements ConversationMonitor.Delegate {
@@ -87,6 +92,14 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
     private static final long MAX_FILE_SIZE_BYTES = 25 * 1024 * 1024;
     private static final long TYPING_EVENT_TIMEOUT_MILLIS = 10000L;
     private static final long STOP_TYPING_BUFFER_MILLIS = 1000L;
+    /**
+     * The maximum number of messages returned by a single request to the messages endpoint
+     */
+    private static final int MESSAGES_PAGE_SIZE = 100;
+    /**
+     * The maximum number of messages posted to the server without waiting for a response
+     */
+    private static final int MAX_MESSAGES_IN_FLIGHT = 3;
 
     //region Callbacks
     private final ClarabridgeChatCallback<LoginResult> loginOnInitCallback = new ClarabridgeChatCallback<LoginResult>() {
@@ -167,6 +180,26 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
             stopTyping();
         }
     };
+
+    private final Runnable processMessageQueueTask = new Runnable() {
+        @Override
+        public void run() {
+            processMessageQueue();
+        }
+    };
+
+    /**
+     * Invoked on the outbox I/O thread once an outbox write is done, resuming the message queue
+     * once no write is pending anymore
+     */
+    private final Runnable outboxSavedTask = new Runnable() {
+        @Override
+        public void run() {
+            if (pendingOutboxWrites.decrementAndGet() == 0) {
+                schedule(processMessageQueueTask);
+            }
+        }
+    };
     //endregion
 
     private final BroadcastReceiver connectivityReceiver = new BroadcastReceiver() {
@@ -180,14 +213,22 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
     private final LinkedList<Runnable> onClarabridgeChatInitCompleteList = new LinkedList<>();
     private final LinkedList<Runnable> onClarabridgeChatReadyList = new LinkedList<>();
     private final LinkedList<MessageDto> messageQueue = new LinkedList<>();
+    private final LinkedList<MessageInFlight> messagesInFlight = new LinkedList<>();
+    private final LinkedList<OutboxEntryDto> outbox = new LinkedList<>();
     private final Map<String, MessageDto> pendingUploads = new HashMap<>();
     private final Map<String, ProcessingFileUpload> processingUploads = new HashMap<>();
     private final Map<String, Object> messageIdLocks = new HashMap<>();
     private final Map<String, ClarabridgeChatCallback.Response<Message>> rejectedUploads = new HashMap<>();
     private final Object conversationMonitorLock = new Object();
+    private final AtomicInteger pendingOutboxWrites = new AtomicInteger();
 
     private boolean initSyncScheduled = false;
-    private boolean processingMessageQueue = false;
+    private boolean messagesReordered = false;
+    private int connectionEpoch = 0;
+    @Nullable
+    private Double lastAcknowledgedReceived;
+    @Nullable
+    private String outboxConversationId;
     private boolean running = false;
     private boolean retryInitOnConnect = false;
     private boolean fetchCustomerGuard = false;
@@ -246,6 +287,10 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
 
         disconnectConversationMonitor();
 
+        if (persistenceFacade != null) {
+            persistenceFacade.flush();
+        }
+
         unregisterReceiver(connectivityReceiver);
         super.onDestroy();
     }
@@ -289,6 +334,9 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                         .setHost(userSettings.getRealtime().getBaseUrl())
                         .setMaxConnectionAttempts(userSettings.getRealtime().getMaxConnectionAttempts())
                         .setRetryInterval(userSettings.getRealtime().getRetryInterval() * 1000)
+                        .setCompression(settings.isRealtimeCompressionEnabled(),
+                                settings.isRealtimeCompressionContextTakeoverEnabled())
+                        .setRetryConfiguration(retryConfiguration)
                         .build();
             }
 
@@ -326,13 +374,13 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                 isConversationVisible);
 
         if (isMessageAddedToConversationList) {
-            clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+            notifyConversationsListUpdated();
         } else {
-            refreshConversationList(0, false, new ClarabridgeChatCallback<List<ConversationDto>>() {
+            refreshConversationList(0, null, new ClarabridgeChatCallback<List<ConversationDto>>() {
                 @Override
                 public void run(@NonNull Response<List<ConversationDto>> response) {
                     if (response.getData() != null && !response.getData().isEmpty()) {
-                        clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+                        notifyConversationsListUpdated();
                     }
                 }
             });
@@ -371,32 +419,19 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
 
     /***
      * Checks if the given {@link MessageDto} already exists in the current {@link #conversation}.
-     * If the message is not from the current user then {@link List#contains(Object)} is sufficient,
-     * otherwise {@link MessageDto#getText()} will be used to compare. The later can occur if a faye
-     * event is received before the network response when posting a new message.
+     * If the message is not from the current user then {@link ConversationDto#findMessage(MessageDto)}
+     * is sufficient, otherwise {@link MessageDto#getText()} will be used to compare with the messages
+     * that have no ID yet. The later can occur if a faye event is received before the network response
+     * when posting a new message.
      *
      * @param message the {@link MessageDto} to look for
      * @return true if {@link #conversation} contains the message, false otherwise
      */
     private boolean messageExists(MessageDto message) {
-        boolean messageExists;
-
         synchronized (conversation.getMessages()) {
-            final List<MessageDto> messages = conversation.getMessages();
-
-            messageExists = messages.contains(message);
-
-            if (!messageExists && message.isFromCurrentUser()) {
-                for (int i = messages.size() - 1; i >= 0 && !messageExists; i--) {
-                    final MessageDto m = messages.get(i);
-                    if (m.getId() == null) {
-                        messageExists = StringUtils.isEqual(m.getText(), message.getText());
-                    }
-                }
-            }
+            return conversation.findMessage(message) != null
+                    || (message.isFromCurrentUser() && conversation.containsMessageWithoutId(message.getText()));
         }
-
-        return messageExists;
     }
 
     @Override
@@ -436,11 +471,9 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
     public void onUploadComplete(final MessageDto message) {
         message.setIsFromCurrentUser(StringUtils.isEqual(message.getUserId(), getUserId()));
         synchronized (conversation.getMessages()) {
-            for (MessageDto entity : conversation.getMessages()) {
-                if (entity.equals(message)) {
-                    entity.update(message);
-                    break;
-                }
+            MessageDto entity = conversation.findMessage(message);
+            if (entity != null) {
+                entity.update(message);
             }
             persistenceFacade.saveConversationById(conversation.getId(), conversation);
         }
@@ -474,7 +507,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
             case CONVERSATION_REMOVED:
                 persistenceFacade.removeConversationFromConversationList(event.getConversationId());
                 persistenceFacade.saveConversationById(event.getConversationId(), null);
-                clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+                notifyConversationsListUpdated();
                 break;
             case CONVERSATION_ADDED:
                 final String convoId = event.getConversationId();
@@ -486,7 +519,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                             final ConversationDto conversationDto = response.getData();
                             if (conversationDto != null) {
                                 persistenceFacade.addConversation(convoId, response.getData());
-                                clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+                                notifyConversationsListUpdated();
                             }
                         }
                     });
@@ -494,11 +527,11 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                 break;
             case PARTICIPANT_ADDED:
             case PARTICIPANT_REMOVED:
-                refreshConversationList(0, false, new ClarabridgeChatCallback<List<ConversationDto>>() {
+                refreshConversationList(0, null, new ClarabridgeChatCallback<List<ConversationDto>>() {
                     @Override
                     public void run(@NonNull Response<List<ConversationDto>> response) {
                         if (response.getData() != null && !response.getData().isEmpty()) {
-                            clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+                            notifyConversationsListUpdated();
                         }
                     }
                 });
@@ -552,7 +585,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                 break;
         }
 
-        clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+        notifyConversationsListUpdated();
 
         boolean isCurrentConvo = StringUtils.isNotNullAndEqual(getConversationId(), event.getConversationId());
         ConversationDto updatedConversation = persistenceFacade.getConversationById(event.getConversationId());
@@ -593,6 +626,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
         handler = clarabridgeChatComponent.handler();
         persistenceFacade = clarabridgeChatComponent.persistenceFacade();
         persistenceFacade.setIntegrationId(settings.getIntegrationId());
+        persistenceFacade.setWriteBehindEnabled(settings.isPersistenceWriteBehindEnabled());
 
         conversationManager = clarabridgeChatComponent.conversationManager();
 
@@ -1022,6 +1056,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                                             // if the user has changed, clear messages
                                             if (!StringUtils.isEqual(appUser.getUserId(), getUserId())) {
                                                 conversation.setMessages(new ArrayList<MessageDto>());
+                                                clearOutbox();
                                             }
 
                                             onUserUpdate(responseBody);
@@ -1032,6 +1067,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                                         appUserRemote.setUserId(null);
                                         appUserRemote.setHasPaymentInfo(false);
                                         conversation = new ConversationDto();
+                                        clearOutbox();
                                         updateAndNotifyConversation(conversation);
                                         sync();
                                         persistenceFacade.saveUserId(null);
@@ -1112,9 +1148,11 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
             appUserLocal = new AppUserDto();
             appUserRemote = new AppUserDto();
             conversation = new ConversationDto();
+            clearOutbox();
             persistenceFacade.saveJwt(null);
             persistenceFacade.saveUserId(null);
             sync();
+            persistenceFacade.flush();
 
             clarabridgeChatObserver.onLogoutComplete(LogoutResult.SUCCESS);
             responseBuilder.withData(LogoutResult.SUCCESS);
@@ -1151,6 +1189,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                                     appUserLocal = new AppUserDto();
                                     appUserRemote = new AppUserDto();
                                     conversation = new ConversationDto();
+                                    clearOutbox();
                                     persistenceFacade.saveUserId(null);
                                     sync();
                                     onInitializationStatusChanged(InitializationStatus.SUCCESS);
@@ -1488,7 +1527,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                                     .build();
                     internalCallback.run(callbackResponse);
                 } else {
-                    refreshConversationList(0, false, internalCallback);
+                    refreshConversationList(0, null, internalCallback);
                 }
             }
         });
@@ -1496,7 +1535,8 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
 
     /**
      * Retrieve the 10 more recently active {@link com.clarabridge.core.Conversation}s for the current user, sorted
-     * from most recently updated to last.
+     * from most recently updated to last. Conversations stored from a previous session are loaded from storage
+     * before any more are fetched.
      *
      * @param internalCallback a {@link ClarabridgeChatCallback} to be invoked when the list is ready
      */
@@ -1504,11 +1544,14 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
         onClarabridgeChatInitSuccess(new Runnable() {
             @Override
             public void run() {
-                if (persistenceFacade.isHasMoreConversations()) {
-                    int currentOffset = !persistenceFacade.getConversationsList().isEmpty()
-                            ? persistenceFacade.getConversationsList().size()
-                            : 0;
-                    refreshConversationList(currentOffset, false, internalCallback);
+                List<ConversationDto> storedConversations = persistenceFacade.loadNextConversationsListPage();
+                if (!storedConversations.isEmpty()) {
+                    internalCallback.run(new ClarabridgeChatCallback.Response.Builder<List<ConversationDto>>(200)
+                            .withData(storedConversations)
+                            .build());
+                } else if (persistenceFacade.isHasMoreConversations()) {
+                    int currentOffset = persistenceFacade.getConversationsList().size();
+                    refreshConversationList(currentOffset, null, internalCallback);
                 }
             }
         });
@@ -1545,7 +1588,20 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
 
     public void sendMessage(final MessageDto message) {
         cancelTyping();
-        messageQueue.push(message);
+
+        OutboxEntryDto outboxEntry = findOutboxEntry(message);
+        if (outboxEntry == null) {
+            outboxEntry = new OutboxEntryDto(message, getConversationId());
+            outbox.add(outboxEntry);
+        } else {
+            outboxEntry.setRetryCount(0);
+            outboxEntry.setNextAttemptAt(0);
+        }
+        persistOutbox(outboxEntry.getConversationId());
+
+        if (!messageQueue.contains(message)) {
+            messageQueue.add(message);
+        }
 
         onClarabridgeChatReady(new Runnable() {
             @Override
@@ -1614,6 +1670,7 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                             getConversationId(),
                             fileMessage,
                             getUserId(),
+                            createUploadProgressListener(callback),
                             new ClarabridgeChatApiClientCallback<FileUploadDto>() {
                                 @Override
                                 public void onResult(boolean isSuccessful, int statusCode,
@@ -1627,6 +1684,36 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
         });
     }
 
+    /**
+     * Creates an {@link UploadProgressListener} that notifies the given callback of the progress
+     * of an upload on the main thread, if it is a {@link ClarabridgeChatCallback.UploadCallback}.
+     *
+     * @param callback the callback of the upload
+     * @return the {@link UploadProgressListener}, or null if the callback is not interested in
+     * the progress of the upload
+     */
+    @Nullable
+    private UploadProgressListener createUploadProgressListener(final ClarabridgeChatCallback<Message> callback) {
+        if (!(callback instanceof ClarabridgeChatCallback.UploadCallback)) {
+            return null;
+        }
+
+        final ClarabridgeChatCallback.UploadCallback<Message> uploadCallback =
+                (ClarabridgeChatCallback.UploadCallback<Message>) callback;
+
+        return new UploadProgressListener() {
+            @Override
+            public void onProgress(final long bytesWritten, final long contentLength) {
+                schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        uploadCallback.onProgress(bytesWritten, contentLength);
+                    }
+                });
+            }
+        };
+    }
+
     public void loadConversation(@NonNull final String conversationId,
                                  @NonNull final ClarabridgeChatCallback<ConversationDto> callback) {
         onClarabridgeChatInitSuccess(new Runnable() {
@@ -2124,6 +2211,15 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
             }
         }
 
+        if (conversation.getId() != null && !conversation.getId().equals(outboxConversationId)) {
+            schedule(new Runnable() {
+                @Override
+                public void run() {
+                    replayOutbox();
+                }
+            });
+        }
+
         if (!StringUtils.isEmpty(updatedConversation.getId())) {
             schedule(new Runnable() {
                 @Override
@@ -2145,6 +2241,21 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
         });
     }
 
+    /**
+     * Notifies the {@link ClarabridgeChatObserver} of the current conversation list on the main
+     * thread. The list is read on the calling thread, which may be the realtime thread.
+     */
+    private void notifyConversationsListUpdated() {
+        final List<ConversationDto> conversations = persistenceFacade.getConversationsList();
+
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                clarabridgeChatObserver.onConversationsListUpdated(conversations);
+            }
+        });
+    }
+
     @VisibleForTesting
     void schedule(final Runnable task) {
         if (handler != null) {
@@ -2173,13 +2284,24 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
     }
 
     private void onConnectionStatusChanged(final ConnectionStatus status) {
+        // Requests posted over different connections can reach the server in any order
+        connectionEpoch++;
+
         switch (status) {
             case CONNECTED:
+                // A new connection may not reorder requests like the previous one did
+                messagesReordered = false;
+
                 if (retryInitOnConnect) {
                     init();
                     retryInitOnConnect = false;
                 } else if (isConversationStarted() && this.connectionStatus != ConnectionStatus.UNKNOWN) {
-                    refreshConversation(null);
+                    resyncConversation(null);
+                }
+
+                // Reconnect right away instead of waiting for the backoff delay to elapse
+                if (isRunning() && conversationMonitor != null) {
+                    conversationMonitor.resume();
                 }
 
                 break;
@@ -2196,15 +2318,15 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
 
     private void onClarabridgeChatConnectionStatusChanged(@NonNull final ClarabridgeChatConnectionStatus status) {
         if (status == ClarabridgeChatConnectionStatus.CONNECTED) {
-            refreshConversationList(0, true, new ClarabridgeChatCallback<List<ConversationDto>>() {
+            refreshConversationList(0, new HashSet<String>(), new ClarabridgeChatCallback<List<ConversationDto>>() {
                 @Override
                 public void run(@NonNull Response<List<ConversationDto>> response) {
                     if (response.getData() != null && !response.getData().isEmpty()) {
-                        clarabridgeChatObserver.onConversationsListUpdated(persistenceFacade.getConversationsList());
+                        notifyConversationsListUpdated();
                     }
                 }
             });
-            refreshConversation(new Runnable() {
+            resyncConversation(new Runnable() {
                 @Override
                 public void run() {
                     runOnClarabridgeChatReadyList();
@@ -2243,63 +2365,399 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
         });
     }
 
+    /**
+     * Posts the queued messages in order, keeping up to {@link #getMaxMessagesInFlight()} requests
+     * in flight at once so that a burst of messages is not delayed by one round trip per message.
+     * Ordering is best effort, as the server orders messages by the time it receives them: a
+     * message is only posted while the messages in flight were posted over the same connection,
+     * see {@link #canPostMessage()}.
+     * <p>
+     * Responses are acknowledged in the order the messages were posted, see
+     * {@link #acknowledgeMessagesInFlight()}. A message waiting for its next retry holds back the
+     * messages queued after it, and the queue is processed again once it is due.
+     * <p>
+     * The outbox is written in the background, see {@link #persistOutbox(String)}. Nothing is
+     * posted while an outbox write is pending, so that a message is always in its outbox before it
+     * can reach the server, and the queue is processed again once the writes are done.
+     */
     private void processMessageQueue() {
         onClarabridgeChatInitSuccess(new Runnable() {
             @Override
             public void run() {
-                if (processingMessageQueue) {
+                if (getConversationId() == null || pendingOutboxWrites.get() > 0) {
                     return;
                 }
 
-                final MessageDto message = messageQueue.pollFirst();
-                if (getConversationId() == null || message == null) {
-                    return;
+                while (canPostMessage() && !messageQueue.isEmpty()) {
+                    OutboxEntryDto outboxEntry = findOutboxEntry(messageQueue.peekFirst());
+                    long delayMillis = outboxEntry != null
+                            ? outboxEntry.getNextAttemptAt() - System.currentTimeMillis()
+                            : 0;
+
+                    if (delayMillis > 0) {
+                        schedule(processMessageQueueTask, delayMillis);
+                        return;
+                    }
+
+                    postMessage(messageQueue.pollFirst());
                 }
+            }
+        });
+    }
 
-                processingMessageQueue = true;
-                clarabridgeChatApiClient.postMessage(
-                        getConversationId(),
-                        message,
-                        getUserId(),
-                        new ClarabridgeChatApiClientCallback<PostMessageDto>() {
-                            @Override
-                            public void onResult(boolean isSuccessful, int statusCode,
-                                                 @Nullable PostMessageDto responseBody) {
-                                if (isSuccessful && responseBody != null) {
-                                    final List<MessageDto> messages = responseBody.getMessages();
-
-                                    if (messages != null && messages.size() > 0) {
-                                        for (MessageDto messageDto : messages) {
-                                            if (!StringUtils.isEmpty(messageDto.getId())) {
-                                                messageQueue.remove(message);
-                                                message.update(messageDto);
-                                                message.setStatus(MessageDto.Status.SENT);
-                                            } else {
-                                                message.setStatus(MessageDto.Status.SENDING_FAILED);
-                                            }
-                                        }
-                                    }
-                                } else {
-                                    message.setStatus(MessageDto.Status.SENDING_FAILED);
-                                }
+    /**
+     * A message is posted right away when nothing is in flight. Otherwise it is only pipelined
+     * behind messages posted since the last connectivity change, as the requests of a previous
+     * connection may still reach the server after it.
+     *
+     * @return true if the next queued message can be posted, false if it has to wait for the
+     * messages in flight to be answered
+     */
+    private boolean canPostMessage() {
+        if (messagesInFlight.isEmpty()) {
+            return true;
+        }
 
-                                conversationManager.updateTimestampsAndUnreadCount(
-                                        conversation,
-                                        message.getReceived(),
-                                        message.getUserId(),
-                                        getUserId(),
-                                        true
-                                );
-
-                                onMessageSent(message);
-                                processingMessageQueue = false;
-                                processMessageQueue();
-                            }
-                        });
+        return messagesInFlight.size() < getMaxMessagesInFlight()
+                && messagesInFlight.peekLast().getConnectionEpoch() == connectionEpoch;
+    }
+
+    /**
+     * @return the maximum number of messages posted without waiting for a response, which is one
+     * once messages were received out of order over the current connection, or while a message is
+     * being retried
+     */
+    private int getMaxMessagesInFlight() {
+        return messagesReordered || isRetryingMessage() ? 1 : MAX_MESSAGES_IN_FLIGHT;
+    }
+
+    /**
+     * @return true if a message of the outbox failed and is waiting to be sent again
+     */
+    private boolean isRetryingMessage() {
+        for (OutboxEntryDto outboxEntry : outbox) {
+            if (outboxEntry.getRetryCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Posts a message to the conversation it was sent to, which is not the current conversation
+     * anymore if the user switched conversations since.
+     *
+     * @param message the {@link MessageDto} to post
+     */
+    private void postMessage(final MessageDto message) {
+        OutboxEntryDto outboxEntry = findOutboxEntry(message);
+        if (outboxEntry != null && outboxEntry.getConversationId() == null) {
+            outboxEntry.setConversationId(getConversationId());
+            persistOutbox(outboxEntry.getConversationId());
+        }
+
+        String conversationId = outboxEntry != null ? outboxEntry.getConversationId() : getConversationId();
+        final MessageInFlight messageInFlight = new MessageInFlight(message, conversationId, connectionEpoch);
+        messagesInFlight.add(messageInFlight);
+
+        clarabridgeChatApiClient.postMessage(
+                conversationId,
+                message,
+                getUserId(),
+                new ClarabridgeChatApiClientCallback<PostMessageDto>() {
+                    @Override
+                    public void onResult(boolean isSuccessful, int statusCode,
+                                         @Nullable PostMessageDto responseBody) {
+                        // The user changed since the message was posted, see clearOutbox()
+                        if (!messagesInFlight.contains(messageInFlight)) {
+                            return;
+                        }
+
+                        messageInFlight.complete(isSuccessful, statusCode, responseBody);
+                        acknowledgeMessagesInFlight();
+                        processMessageQueue();
+                    }
+                });
+    }
+
+    /**
+     * Applies the responses of the messages in flight in the order the messages were posted,
+     * stopping at the first one still waiting for a response. A message is therefore never marked
+     * as sent before the messages the user sent before it.
+     * <p>
+     * The server orders messages by the time it receives them. If a message is received before a
+     * message posted earlier, the requests were reordered on their way to the server and the
+     * messages that follow are posted one at a time until the device reconnects.
+     * <p>
+     * A message that failed with a status code worth retrying is queued again with a backoff
+     * deadline, until {@link RetryConfigurationDto#getMaxRetries()} is reached. The messages
+     * queued after it are then posted one at a time until it is sent, so that they do not overtake
+     * it. The messages already in flight when the failure is acknowledged can not be held back
+     * though: they reach the server before the retried message. The outboxes of the conversations
+     * the messages were posted to are persisted once every response has been applied.
+     */
+    private void acknowledgeMessagesInFlight() {
+        List<MessageDto> retriedMessages = new ArrayList<>();
+        Set<String> acknowledgedConversationIds = new HashSet<>();
+
+        while (!messagesInFlight.isEmpty() && messagesInFlight.peekFirst().isCompleted()) {
+            MessageInFlight messageInFlight = messagesInFlight.pollFirst();
+            MessageDto message = messageInFlight.getMessage();
+            PostMessageDto responseBody = messageInFlight.getResponse();
+            acknowledgedConversationIds.add(messageInFlight.getConversationId());
+
+            if (messageInFlight.isSuccessful() && responseBody != null) {
+                final List<MessageDto> messages = responseBody.getMessages();
+
+                if (messages != null && messages.size() > 0) {
+                    for (MessageDto messageDto : messages) {
+                        if (!StringUtils.isEmpty(messageDto.getId())) {
+                            message.update(messageDto);
+                            message.setStatus(MessageDto.Status.SENT);
+                        } else {
+                            message.setStatus(MessageDto.Status.SENDING_FAILED);
+                        }
+                    }
+                }
+            } else {
+                message.setStatus(MessageDto.Status.SENDING_FAILED);
+            }
+
+            OutboxEntryDto outboxEntry = findOutboxEntry(message);
+            if (outboxEntry != null) {
+                if (message.getStatus() != MessageDto.Status.SENT
+                        && scheduleOutboxRetry(outboxEntry, messageInFlight.getStatusCode())) {
+                    message.setStatus(MessageDto.Status.UNSENT);
+                    retriedMessages.add(message);
+                    continue;
+                }
+
+                outbox.remove(outboxEntry);
+            }
+
+            if (message.getStatus() == MessageDto.Status.SENT && message.getReceived() != null) {
+                if (lastAcknowledgedReceived != null && message.getReceived() < lastAcknowledgedReceived) {
+                    Logger.w(TAG, "Message %s was received out of order, posting messages one at a time",
+                            message.getId());
+                    messagesReordered = true;
+                }
+
+                lastAcknowledgedReceived = message.getReceived();
+            }
+
+            // The message was posted to a conversation the user switched away from since
+            if (!StringUtils.isEqual(messageInFlight.getConversationId(), getConversationId())) {
+                updateStoredMessage(messageInFlight.getConversationId(), message);
+                continue;
+            }
+
+            conversationManager.updateTimestampsAndUnreadCount(
+                    conversation,
+                    message.getReceived(),
+                    message.getUserId(),
+                    getUserId(),
+                    true
+            );
+
+            onMessageSent(message);
+        }
+
+        messageQueue.addAll(0, retriedMessages);
+
+        for (String conversationId : acknowledgedConversationIds) {
+            persistOutbox(conversationId);
+        }
+    }
+
+    /**
+     * Applies the outcome of posting a message to the stored copy of the conversation it was posted
+     * to, for when the user switched to another conversation since.
+     *
+     * @param conversationId the ID of the conversation the message was posted to
+     * @param message        the {@link MessageDto} that was acknowledged
+     */
+    private void updateStoredMessage(@Nullable String conversationId, @NonNull MessageDto message) {
+        ConversationDto storedConversation = conversationId != null
+                ? persistenceFacade.getConversationById(conversationId)
+                : null;
+        MessageDto storedMessage = storedConversation != null ? storedConversation.findMessage(message) : null;
+
+        if (storedMessage != null) {
+            storedMessage.update(message);
+            storedMessage.setStatus(message.getStatus());
+            persistenceFacade.saveConversationById(conversationId, storedConversation);
+        }
+    }
+
+    /**
+     * Sets the deadline of the next attempt at sending the message of the given
+     * {@link OutboxEntryDto}, backing off exponentially with each failure.
+     * <p>
+     * Only failures known not to have created the message are retried: responses with a status
+     * code worth retrying, and network errors that happened before the request was sent. A request
+     * that failed with {@link ClarabridgeChatApiClientCallback#STATUS_NO_RESPONSE} may have created
+     * the message, so it is marked as failed rather than posted twice.
+     *
+     * @param outboxEntry the {@link OutboxEntryDto} of the message that failed to be sent
+     * @param statusCode  the status code of the failed request
+     * @return true if the message should be sent again, false if it should be marked as failed
+     */
+    private boolean scheduleOutboxRetry(@NonNull OutboxEntryDto outboxEntry, int statusCode) {
+        if (retryConfiguration == null) {
+            retryConfiguration = new RetryConfigurationDto();
+        }
+
+        if (!isRetryableStatusCode(statusCode) || outboxEntry.getRetryCount() >= retryConfiguration.getMaxRetries()) {
+            return false;
+        }
+
+        long delayMillis = (long) (retryConfiguration.getRegularInterval() * 1000L * Math.pow(
+                retryConfiguration.getBackoffMultiplier(),
+                outboxEntry.getRetryCount()
+        ));
+
+        outboxEntry.setRetryCount(outboxEntry.getRetryCount() + 1);
+        outboxEntry.setNextAttemptAt(System.currentTimeMillis() + delayMillis);
+        return true;
+    }
+
+    /**
+     * Restores the messages that were waiting to be sent in the current conversation when the
+     * process last stopped or the user last left the conversation, and resumes sending them. Their
+     * retry counts and deadlines are kept so that a message that kept failing is not sent again
+     * sooner than it would have been.
+     * <p>
+     * Messages still in the outbox when switching to another conversation keep being sent to the
+     * conversation they were sent in, and stay in its outbox until they are.
+     */
+    private void replayOutbox() {
+        final String conversationId = getConversationId();
+        if (conversationId == null || conversationId.equals(outboxConversationId)) {
+            return;
+        }
+        outboxConversationId = conversationId;
+
+        persistenceFacade.getOutbox(conversationId, new PersistenceFacade.OutboxCallback() {
+            @Override
+            public void onOutboxRead(@NonNull final List<OutboxEntryDto> entries) {
+                schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        restoreOutbox(conversationId, entries);
+                    }
+                });
             }
         });
     }
 
+    /**
+     * Queues the messages read from the outbox of the given conversation again, unless the user
+     * switched to another conversation while it was read. See {@link #replayOutbox()}.
+     *
+     * @param conversationId the ID of the conversation whose outbox was read
+     * @param entries        the stored outbox entries
+     */
+    private void restoreOutbox(@NonNull String conversationId, @NonNull List<OutboxEntryDto> entries) {
+        if (conversation == null || !conversationId.equals(getConversationId())) {
+            return;
+        }
+
+        boolean restoredMessages = false;
+        for (OutboxEntryDto outboxEntry : entries) {
+            if (findOutboxEntry(outboxEntry.getMessage()) != null) {
+                continue;
+            }
+
+            MessageDto message = conversation.findMessage(outboxEntry.getMessage());
+            if (message == null) {
+                message = outboxEntry.getMessage();
+                conversation.addMessages(Collections.singletonList(message));
+                restoredMessages = true;
+            } else if (message.getStatus() == MessageDto.Status.SENT) {
+                continue;
+            }
+
+            message.setStatus(MessageDto.Status.UNSENT);
+            message.setIsFromCurrentUser(true);
+            outboxEntry.setMessage(message);
+            outboxEntry.setConversationId(conversationId);
+            outbox.add(outboxEntry);
+
+            if (!messageQueue.contains(message)) {
+                messageQueue.add(message);
+            }
+        }
+        persistOutbox(conversationId);
+
+        if (restoredMessages) {
+            conversationObserver.onConversationUpdated(conversationId);
+        }
+
+        if (!messageQueue.isEmpty()) {
+            onClarabridgeChatReady(processMessageQueueTask);
+        }
+    }
+
+    /**
+     * Forgets the messages waiting to be sent once the user changed, so that the messages of the
+     * previous user are neither posted with the credentials of the new user nor written to the
+     * outboxes of the new user. The responses of the messages still in flight are ignored, and the
+     * outboxes already written are left in the storage of the previous user.
+     */
+    private void clearOutbox() {
+        messageQueue.clear();
+        messagesInFlight.clear();
+        outbox.clear();
+        outboxConversationId = null;
+        lastAcknowledgedReceived = null;
+        messagesReordered = false;
+
+        // The messages posted from now on do not follow the ones posted for the previous user
+        connectionEpoch++;
+    }
+
+    /**
+     * Writes the messages waiting to be sent to the given conversation to its outbox. The entries
+     * are serialized right away and written on the outbox I/O thread, in the order the writes were
+     * requested. Messages are only posted once the writes requested before are done, see
+     * {@link #processMessageQueue()}.
+     *
+     * @param conversationId the ID of the conversation, or null if the messages were sent before a
+     *                       conversation existed, in which case nothing is written
+     */
+    private void persistOutbox(@Nullable String conversationId) {
+        if (conversationId == null) {
+            return;
+        }
+
+        List<OutboxEntryDto> entries = new ArrayList<>();
+        for (OutboxEntryDto outboxEntry : outbox) {
+            if (conversationId.equals(outboxEntry.getConversationId())) {
+                entries.add(outboxEntry);
+            }
+        }
+        pendingOutboxWrites.incrementAndGet();
+        persistenceFacade.saveOutbox(conversationId, entries, outboxSavedTask);
+    }
+
+    /**
+     * @param message the {@link MessageDto} to look for
+     * @return the {@link OutboxEntryDto} of the given message, or null if it is not in the outbox
+     */
+    @Nullable
+    private OutboxEntryDto findOutboxEntry(@Nullable MessageDto message) {
+        if (message == null) {
+            return null;
+        }
+
+        for (OutboxEntryDto outboxEntry : outbox) {
+            if (message.equals(outboxEntry.getMessage())) {
+                return outboxEntry;
+            }
+        }
+        return null;
+    }
+
     /**
      * If there's a conversation currently loaded, then a request is made to the server to fetch the
      * most recent messages. Unsent messages are preserved, being added at the end of the updated list.
@@ -2347,17 +2805,100 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                 });
     }
 
+    /**
+     * Catches up with the messages missed while disconnected. Only the messages received after the
+     * newest one stored are fetched. They are merged into the conversation at once together with
+     * the conversation returned alongside them, which carries the read state and unread counts, as
+     * {@link #refreshConversation(Runnable)} does.
+     * <p>
+     * The whole conversation is refreshed through {@link #refreshConversation(Runnable)} instead
+     * when no message was stored yet, when the request fails, when the conversation is not part of
+     * the response, or when a full page of messages is returned, as more messages may be missing
+     * past that page.
+     *
+     * @param runnable a {@link Runnable} to be invoked once the conversation is up to date
+     */
+    @VisibleForTesting
+    void resyncConversation(final Runnable runnable) {
+        final String conversationId = getConversationId();
+
+        if (conversationId == null || conversation == null) {
+            return;
+        }
+
+        Double latestReceived = conversation.getLatestReceived();
+
+        if (latestReceived == null) {
+            refreshConversation(runnable);
+            return;
+        }
+
+        clarabridgeChatApiClient.getMessages(
+                conversationId,
+                latestReceived,
+                new ClarabridgeChatApiClientCallback<ConversationResponseDto>() {
+                    @Override
+                    public void onResult(boolean isSuccessful, int statusCode,
+                                         @Nullable ConversationResponseDto responseBody) {
+                        if (!isSuccessful || responseBody == null || responseBody.getConversation() == null
+                                || responseBody.getMessages() == null
+                                || responseBody.getMessages().size() >= MESSAGES_PAGE_SIZE) {
+                            refreshConversation(runnable);
+                            return;
+                        }
+
+                        if (conversation != null && StringUtils.isEqual(conversationId, getConversationId())) {
+                            ConversationDto responseConversation = responseBody.getConversation();
+                            List<MessageDto> missedMessages = new ArrayList<>();
+
+                            for (MessageDto message : responseBody.getMessages()) {
+                                message.setIsFromCurrentUser(StringUtils.isEqual(getUserId(), message.getUserId()));
+
+                                if (!messageExists(message)) {
+                                    missedMessages.add(message);
+                                }
+                            }
+
+                            synchronized (conversation.getMessages()) {
+                                responseConversation.setMessages(new ArrayList<>(conversation.getMessages()));
+                            }
+                            responseConversation.addMessages(missedMessages);
+
+                            cleanProcessingUploads(responseBody.getMessages());
+
+                            updateAndNotifyConversation(responseConversation);
+                            buildAndStartConversationMonitor();
+
+                            if (!missedMessages.isEmpty()) {
+                                persistenceFacade.updateConversation(conversationId, responseConversation);
+                                notifyConversationsListUpdated();
+                            }
+                        }
+
+                        if (runnable != null) {
+                            runnable.run();
+                        }
+                    }
+                });
+    }
+
     /**
      * This method is calling directly the get conversation list endpoint and updati
      *
-     * @param offset   The offset is simply the number of conversations you wish to skip before beginning
-     *                 to the new conversation list. It starts by 0 and it returns 10 conversations.
-     * @param callback a {@link ClarabridgeChatCallback} to be invoked when the request completes that will
-     *                 contain a {@link ConversationDto} if successful, otherwise an error message
+     * @param offset                The offset is simply the number of conversations you wish to skip before
+     *                              beginning to the new conversation list. It starts by 0 and it returns 10
+     *                              conversations.
+     * @param syncedConversationIds if not null, pages keep being fetched until one reaches a conversation that
+     *                              has not changed since it was listed, and listed conversations that were
+     *                              not fetched within that range are removed. The IDs of the fetched
+     *                              conversations are added to this set.
+     * @param callback              a {@link ClarabridgeChatCallback} to be invoked when the request completes
+     *                              that will contain a {@link ConversationDto} if successful, otherwise an
+     *                              error message
      */
     @VisibleForTesting
     void refreshConversationList(final int offset,
-                                 final boolean clearPersistence,
+                                 @Nullable final Set<String> syncedConversationIds,
                                  @Nullable final ClarabridgeChatCallback<List<ConversationDto>> callback) {
         if (appUserRemote == null || appUserRemote.getUserId() == null) {
             Logger.w(TAG, "There was no app user id to fetch the conversations list");
@@ -2383,19 +2924,45 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
                         ClarabridgeChatCallback.Response<List<ConversationDto>> callbackResponse;
 
                         if (isSuccessful) {
-                            persistenceFacade.setHasMoreConversations(responseBody != null
+                            boolean hasMore = responseBody != null
                                     && responseBody.getConversationsPagination() != null
-                                    && responseBody.getConversationsPagination().isHasMore());
+                                    && responseBody.getConversationsPagination().isHasMore();
 
                             List<ConversationDto> conversationsList = responseBody != null
+                                    && responseBody.getConversations() != null
                                     ? responseBody.getConversations()
                                     : new ArrayList<ConversationDto>();
 
-                            if (clearPersistence && !persistenceFacade
-                                    .getConversationsList(10).containsAll(conversationsList)) {
-                                persistenceFacade.clearInMemoryCachedConversationList();
+                            if (syncedConversationIds == null) {
+                                persistenceFacade.setHasMoreConversations(hasMore);
+                                persistenceFacade.saveConversationsList(conversationsList);
+                            } else {
+                                ConversationDto oldestConversation = !conversationsList.isEmpty()
+                                        ? conversationsList.get(conversationsList.size() - 1)
+                                        : null;
+                                boolean hasOlderChanges = oldestConversation != null
+                                        && !persistenceFacade.isConversationListed(oldestConversation);
+
+                                for (ConversationDto conversation : conversationsList) {
+                                    syncedConversationIds.add(conversation.getId());
+                                }
+                                if (!hasMore) {
+                                    persistenceFacade.setHasMoreConversations(false);
+                                }
+                                persistenceFacade.saveConversationsList(conversationsList);
+
+                                if (hasMore && hasOlderChanges) {
+                                    // Every conversation of this page changed, so the next page may have changed too
+                                    refreshConversationList(
+                                            offset + conversationsList.size(), syncedConversationIds, callback);
+                                    return;
+                                }
+
+                                persistenceFacade.removeConversationsNotListedSince(syncedConversationIds,
+                                        hasMore && oldestConversation != null
+                                                ? oldestConversation.getLastUpdatedAt()
+                                                : null);
                             }
-                            persistenceFacade.saveConversationsList(conversationsList);
 
                             callbackResponse =
                                     new ClarabridgeChatCallback.Response.Builder<List<ConversationDto>>(200)
@@ -2704,8 +3271,13 @@ public class ClarabridgeChatService extends Service implements ConversationMonit
     // endregion
 
     @VisibleForTesting
-    void triggerNotification(String conversationId, MessageDto message) {
-        Notifier.notify(this, conversationId, message);
+    void triggerNotification(final String conversationId, final MessageDto message) {
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                Notifier.notify(ClarabridgeChatService.this, conversationId, message);
+            }
+        });
     }
 
     interface FirebaseTokenCallback {
@@ -0,0 +1,74 @@
+package com.clarabridge.core.service;
+
+import androidx.annotation.Nullable;
+
+import com.clarabridge.core.model.MessageDto;
+import com.clarabridge.core.model.PostMessageDto;
+
+/**
+ * A message posted to the server, holding on to the response until the messages posted before it
+ * are acknowledged.
+ */
+class MessageInFlight {
+    private final MessageDto message;
+    private final String conversationId;
+    private final int connectionEpoch;
+    private boolean completed;
+    private boolean successful;
+    private int statusCode;
+    @Nullable
+    private PostMessageDto response;
+
+    /**
+     * @param message         the message that was posted
+     * @param conversationId  the ID of the conversation the message was posted to
+     * @param connectionEpoch identifies the network connection the message was posted over
+     */
+    MessageInFlight(MessageDto message, String conversationId, int connectionEpoch) {
+        this.message = message;
+        this.conversationId = conversationId;
+        this.connectionEpoch = connectionEpoch;
+    }
+
+    public MessageDto getMessage() {
+        return message;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    /**
+     * @return identifies the network connection the message was posted over
+     */
+    public int getConnectionEpoch() {
+        return connectionEpoch;
+    }
+
+    /**
+     * @return true once the server responded or the request failed
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    @Nullable
+    public PostMessageDto getResponse() {
+        return response;
+    }
+
+    void complete(boolean successful, int statusCode, @Nullable PostMessageDto response) {
+        this.completed = true;
+        this.successful = successful;
+        this.statusCode = statusCode;
+        this.response = response;
+    }
+}
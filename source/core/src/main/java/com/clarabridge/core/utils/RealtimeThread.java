@@ -0,0 +1,32 @@
+package com.clarabridge.core.utils;
+
+import android.os.HandlerThread;
+
+/**
+ * Holds the thread on which realtime messages are parsed and dispatched, keeping that work away
+ * from the main thread and from the background thread used for writes to the WebSocket.
+ */
+public final class RealtimeThread {
+
+    private static RealtimeThread INSTANCE;
+
+    public static HandlerThread get() {
+        synchronized (RealtimeThread.class) {
+            if (INSTANCE == null) {
+                INSTANCE = new RealtimeThread();
+            }
+        }
+        return INSTANCE.thread();
+    }
+
+    private final HandlerThread handlerThread = new HandlerThread("realtime-thread");
+
+    private HandlerThread thread() {
+        synchronized (handlerThread) {
+            if (!handlerThread.isAlive()) {
+                handlerThread.start();
+            }
+        }
+        return handlerThread;
+    }
+}
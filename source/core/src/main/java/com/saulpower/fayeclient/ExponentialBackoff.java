@@ -0,0 +1,52 @@
+package com.saulpower.fayeclient;
+
+import java.util.Random;
+
+/**
+ * Computes the delays between reconnection attempts using exponential backoff with full jitter.
+ * <p>
+ * The delay before an attempt is picked at random between zero and an upper bound that grows
+ * exponentially with the number of attempts already made, up to a maximum. Spreading the delay
+ * over the whole range keeps clients that lost their connection at the same time from
+ * reconnecting in lockstep.
+ */
+class ExponentialBackoff {
+
+    private final Random random = new Random();
+
+    private long baseDelay;
+    private long maxDelay;
+    private double multiplier;
+
+    /**
+     * @param baseDelay  the upper bound of the first delay, in milliseconds
+     * @param maxDelay   the maximum upper bound of any delay, in milliseconds
+     * @param multiplier the factor by which the upper bound grows after every attempt
+     */
+    ExponentialBackoff(long baseDelay, long maxDelay, double multiplier) {
+        configure(baseDelay, maxDelay, multiplier);
+    }
+
+    /**
+     * @param baseDelay  the upper bound of the first delay, in milliseconds
+     * @param maxDelay   the maximum upper bound of any delay, in milliseconds. Raised to the base
+     *                   delay if it is lower
+     * @param multiplier the factor by which the upper bound grows after every attempt. Values
+     *                   lower than one are treated as one
+     */
+    void configure(long baseDelay, long maxDelay, double multiplier) {
+        this.baseDelay = Math.max(baseDelay, 0);
+        this.maxDelay = Math.max(maxDelay, this.baseDelay);
+        this.multiplier = Math.max(multiplier, 1);
+    }
+
+    /**
+     * @param attempt the number of attempts already made
+     * @return the delay in milliseconds to wait before the next attempt
+     */
+    long getDelay(int attempt) {
+        double upperBound = Math.min(baseDelay * Math.pow(multiplier, attempt), maxDelay);
+
+        return (long) (random.nextDouble() * upperBound);
+    }
+}
@@ -29,15 +29,30 @@ package com.saulpower.fayeclient;
 import android.annotation.SuppressLint;
 import android.os.Handler;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.saulpower.fayeclient.WebSocketClient.Listener;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.clarabridge.core.AuthenticationError;
 import com.clarabridge.core.Logger;
@@ -71,10 +86,20 @@ public class FayeClient implements Listener {
 
     private static final String ERROR_UNKNOWN_CLIENT = "Unknown client";
 
+    private static final long DEFAULT_MAX_RETRY_INTERVAL = 60000L;
+    private static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+    private static final long DEFAULT_PING_INTERVAL = 30000L;
+    private static final long DEFAULT_PONG_TIMEOUT = 10000L;
+
     private long retryInterval = 10000L;
     private int maxConnectionAttempts = 3;
+    private ExponentialBackoff backoff;
+    private long pingInterval = DEFAULT_PING_INTERVAL;
+    private long pongTimeout = DEFAULT_PONG_TIMEOUT;
+    private boolean compressionEnabled = false;
+    private boolean compressionContextTakeover = true;
 
-    private WebSocketClient client;
+    private volatile WebSocketClient client;
     private boolean connected = false;
     private int connectionAttempts = 0;
 
@@ -82,36 +107,67 @@ public class FayeClient implements Listener {
     private String fayeClientId;
     private String activeSubChannel;
 
+    /**
+     * Listeners of the channels subscribed to in addition to the main channel
+     */
+    private final Map<String, ChannelListener> channelListeners = new LinkedHashMap<>();
+    private final Set<String> pendingSubscriptions = new LinkedHashSet<>();
+    private final Set<String> pendingUnsubscriptions = new LinkedHashSet<>();
+    private boolean subscriptionFlushScheduled = false;
+
     private JSONObject connectionExtension;
 
     private boolean running = false;
     private boolean reconnecting = false;
+    private boolean awaitingConnection = false;
 
     private Handler handler;
+
+    /**
+     * Opens a connection, waits up to the retry interval for it to be established
+     * and, if it was not, waits for a backoff delay before trying again until
+     * the maximum number of attempts is reached.
+     */
     private Runnable connectionMonitor = new Runnable() {
 
         @Override
         public void run() {
 
-            if (!connected) {
+            if (connected) {
 
-                openWebSocketConnection();
+                stopConnectionMonitor();
+
+            } else if (awaitingConnection) {
+
+                awaitingConnection = false;
 
                 if (connectionAttempts < maxConnectionAttempts) {
-                    connectionAttempts++;
-                    getHandler().postDelayed(this, retryInterval);
+                    getHandler().postDelayed(this, backoff.getDelay(connectionAttempts));
+                } else {
+                    Logger.w(TAG, "Giving up after %d connection attempts", connectionAttempts);
+                    stopConnectionMonitor();
                 }
 
             } else {
 
-                getHandler().removeCallbacks(this);
-                running = false;
-                connectionAttempts = 0;
-                reconnecting = false;
+                openWebSocketConnection();
+
+                connectionAttempts++;
+                awaitingConnection = true;
+                getHandler().postDelayed(this, retryInterval);
             }
         }
     };
 
+    private final Runnable subscriptionFlusher = new Runnable() {
+
+        @Override
+        public void run() {
+            subscriptionFlushScheduled = false;
+            flushSubscriptions();
+        }
+    };
+
     private FayeListener fayeListener;
 
     /**
@@ -124,6 +180,19 @@ public class FayeClient implements Listener {
         this.fayeListener = fayeListener;
     }
 
+    /**
+     * Configures the permessage-deflate compression offered to the server when opening a
+     * connection. The configuration is applied to the next connection that is opened.
+     *
+     * @param enabled         true if messages should be compressed when the server supports it
+     * @param contextTakeover true if the compression context should be kept between messages,
+     *                        which compresses better at the cost of memory held for the connection
+     */
+    public void setCompression(boolean enabled, boolean contextTakeover) {
+        compressionEnabled = enabled;
+        compressionContextTakeover = contextTakeover;
+    }
+
     private Handler getHandler() {
 
         return handler;
@@ -132,7 +201,12 @@ public class FayeClient implements Listener {
     /**
      * Creates a new Faye Client for communicating with a Faye server at the
      * provided URL and the specified channel.
+     * <p>
+     * Every event of the connection is processed on the thread of the given
+     * handler, and the public methods of the client are expected to be called
+     * on that same thread.
      *
+     * @param handler The handler on which the connection is processed
      * @param fayeUrl The URL of the FayeServer
      * @param channel The channel to subscribe to
      */
@@ -142,6 +216,57 @@ public class FayeClient implements Listener {
         activeSubChannel = channel;
         this.maxConnectionAttempts = maxConnectionAttempts;
         this.retryInterval = retryInterval;
+        backoff = new ExponentialBackoff(retryInterval, DEFAULT_MAX_RETRY_INTERVAL, DEFAULT_BACKOFF_MULTIPLIER);
+    }
+
+    /**
+     * Configures the delay between reconnection attempts, which grows exponentially
+     * from the retry interval and is picked at random up to that bound.
+     *
+     * @param multiplier       The factor by which the bound grows after every attempt
+     * @param maxRetryInterval The maximum bound of the delay, in milliseconds
+     */
+    public void setReconnectBackoff(double multiplier, long maxRetryInterval) {
+        backoff.configure(retryInterval, maxRetryInterval, multiplier);
+    }
+
+    /**
+     * Configures the heartbeat used to detect dead connections. A connection whose ping is not
+     * answered in time is reset. Applies to the connections opened after this call.
+     *
+     * @param pingInterval The time between a pong and the next ping, in milliseconds, or 0 to
+     *                     disable the heartbeat
+     * @param pongTimeout  The time to wait for a pong, in milliseconds
+     */
+    public void setHeartbeat(long pingInterval, long pongTimeout) {
+        this.pingInterval = pingInterval;
+        this.pongTimeout = pongTimeout;
+    }
+
+    /**
+     * @return The round trip time of the last ping answered on the current connection, in
+     * milliseconds, or -1 if none was answered yet
+     */
+    public long getRoundTripTime() {
+        WebSocketClient client = this.client;
+        return client != null ? client.getRoundTripTime() : -1;
+    }
+
+    /**
+     * @return The number of frames waiting to be written to the current connection
+     */
+    public int getSendQueueDepth() {
+        WebSocketClient client = this.client;
+        return client != null ? client.getSendQueueDepth() : 0;
+    }
+
+    /**
+     * @return The time taken to write the last batch of frames to the current connection, in
+     * milliseconds, or -1 if nothing was written yet
+     */
+    public long getWriteLatency() {
+        WebSocketClient client = this.client;
+        return client != null ? client.getWriteLatency() : -1;
     }
 
     /**
@@ -151,15 +276,17 @@ public class FayeClient implements Listener {
      *                  credentials and tokens within Bayeux messages ext fields
      */
     public void connectToServer(JSONObject extension) {
-        connectionAttempts = 0;
         connectionExtension = extension;
-        openWebSocketConnection();
+
+        // Connect right away, skipping any backoff delay of a pending reconnection
+        stopConnectionMonitor();
+        startConnectionMonitor(0);
     }
 
     public void disconnectFromServer() {
         disconnect();
         connected = false;
-        getHandler().removeCallbacks(connectionMonitor);
+        stopConnectionMonitor();
     }
 
     /**
@@ -177,7 +304,12 @@ public class FayeClient implements Listener {
             client = null;
         }
 
-        client = new WebSocketClient(getHandler(), fayeUrl, this);
+        PerMessageDeflate perMessageDeflate = compressionEnabled
+                ? new PerMessageDeflate(compressionContextTakeover)
+                : null;
+
+        client = new WebSocketClient(getHandler(), fayeUrl, this, perMessageDeflate);
+        client.setHeartbeat(pingInterval, pongTimeout);
         client.connect();
     }
 
@@ -194,15 +326,32 @@ public class FayeClient implements Listener {
     public void resetWebSocketConnection() {
         if (!reconnecting) {
 
-            reconnecting = true;
             connected = false;
 
             if (!running) {
-                getHandler().post(connectionMonitor);
+                // The first attempt is delayed too, so that clients disconnected at the
+                // same time by the server do not all reconnect at once
+                startConnectionMonitor(backoff.getDelay(0));
             }
         }
     }
 
+    private void startConnectionMonitor(long delay) {
+        running = true;
+        reconnecting = true;
+        connectionAttempts = 0;
+        awaitingConnection = false;
+        getHandler().postDelayed(connectionMonitor, delay);
+    }
+
+    private void stopConnectionMonitor() {
+        getHandler().removeCallbacks(connectionMonitor);
+        running = false;
+        reconnecting = false;
+        connectionAttempts = 0;
+        awaitingConnection = false;
+    }
+
     /**
      * Initiates a connection negotiation by sending a message to the
      * "/meta/handshake" channel.
@@ -299,40 +448,30 @@ public class FayeClient implements Listener {
 
 
     /**
-     * Register interest in a channel and request that messages published to
-     * that channel are delivered.
+     * Register interest in the main channel and in every additional channel,
+     * and request that messages published to those channels are delivered.
+     * All the channels are subscribed to with a single message.
      * <p>
      * Example JSON
      * {
      * KEY_CHANNEL: "/meta/subscribe",
      * KEY_CLIENT_ID: "Un1q31d3nt1f13r",
-     * KEY_SUBSCRIPTION: "/foo/ **"
+     * KEY_SUBSCRIPTION: ["/foo/ **", "/bar"]
      * }
      */
     public void subscribe() {
 
-        try {
+        List<String> channels = new ArrayList<>();
+        channels.add(activeSubChannel);
+        channels.addAll(channelListeners.keySet());
 
-            JSONObject json = new JSONObject();
-            json.put(KEY_CHANNEL, SUBSCRIBE_CHANNEL);
-            json.put(KEY_CLIENT_ID, fayeClientId);
-            json.put(KEY_SUBSCRIPTION, activeSubChannel);
+        // Everything pending is covered by this message
+        pendingSubscriptions.clear();
+        pendingUnsubscriptions.clear();
 
-            if (null != connectionExtension) {
-                // XXX Put the extensions on the object instead of inside KEY_EXT
-                final Iterator<String> it = connectionExtension.keys();
-
-                while (it.hasNext()) {
-                    final String key = it.next();
-
-                    json.put(key, connectionExtension.get(key));
-                }
-                // - XXX
-
-                json.put(KEY_EXT, connectionExtension);
-            }
+        try {
 
-            client.send(json.toString());
+            client.send(createSubscriptionMessage(SUBSCRIBE_CHANNEL, channels).toString());
 
         } catch (JSONException ex) {
             Logger.e(TAG, "Handshake Failed", ex);
@@ -341,7 +480,7 @@ public class FayeClient implements Listener {
 
 
     /**
-     * Send unsubscribe messages to cancel interest in channel and to request
+     * Send unsubscribe messages to cancel interest in the main channel and to request
      * that messages published to that channel are not delivered.
      * <p>
      * Example JSON
@@ -355,18 +494,135 @@ public class FayeClient implements Listener {
 
         try {
 
-            JSONObject json = new JSONObject();
-            json.put(KEY_CHANNEL, UNSUBSCRIBE_CHANNEL);
-            json.put(KEY_CLIENT_ID, fayeClientId);
-            json.put(KEY_SUBSCRIPTION, activeSubChannel);
-
-            client.send(json.toString());
+            client.send(createSubscriptionMessage(UNSUBSCRIBE_CHANNEL,
+                    Collections.singletonList(activeSubChannel)).toString());
 
         } catch (JSONException ex) {
             Logger.e(TAG, "Handshake Failed", ex);
         }
     }
 
+    /**
+     * Subscribe to an additional channel over the same connection. The data of
+     * the messages published to it is handed to the given listener instead of
+     * the {@link FayeListener}.
+     * <p>
+     * Subscriptions and unsubscriptions made while processing the same event
+     * are sent together in a single frame. Channels subscribed to while
+     * disconnected are subscribed to when the connection is established.
+     *
+     * @param channel  The channel to subscribe to, which may end with a wildcard
+     * @param listener The listener of the messages published to the channel
+     */
+    public void subscribe(String channel, ChannelListener listener) {
+
+        if (channel.equals(activeSubChannel)) {
+            Logger.w(TAG, "Already subscribed to the main channel " + channel);
+            return;
+        }
+
+        if (channelListeners.put(channel, listener) == null) {
+
+            if (!pendingUnsubscriptions.remove(channel)) {
+                pendingSubscriptions.add(channel);
+            }
+
+            scheduleSubscriptionFlush();
+        }
+    }
+
+    /**
+     * Cancel the subscription to an additional channel made with
+     * {@link #subscribe(String, ChannelListener)}.
+     *
+     * @param channel The channel to unsubscribe from
+     */
+    public void unsubscribe(String channel) {
+
+        if (channelListeners.remove(channel) != null) {
+
+            if (!pendingSubscriptions.remove(channel)) {
+                pendingUnsubscriptions.add(channel);
+            }
+
+            scheduleSubscriptionFlush();
+        }
+    }
+
+    private void scheduleSubscriptionFlush() {
+
+        if (!subscriptionFlushScheduled) {
+            subscriptionFlushScheduled = true;
+            getHandler().post(subscriptionFlusher);
+        }
+    }
+
+    /**
+     * Sends the pending unsubscriptions and subscriptions as a single frame
+     */
+    private void flushSubscriptions() {
+
+        if (!connected || client == null || fayeClientId == null) {
+            // The subscription made after the next handshake covers every channel
+            pendingSubscriptions.clear();
+            pendingUnsubscriptions.clear();
+            return;
+        }
+
+        try {
+
+            JSONArray messages = new JSONArray();
+
+            if (!pendingUnsubscriptions.isEmpty()) {
+                messages.put(createSubscriptionMessage(UNSUBSCRIBE_CHANNEL, pendingUnsubscriptions));
+            }
+
+            if (!pendingSubscriptions.isEmpty()) {
+                messages.put(createSubscriptionMessage(SUBSCRIBE_CHANNEL, pendingSubscriptions));
+            }
+
+            pendingSubscriptions.clear();
+            pendingUnsubscriptions.clear();
+
+            if (messages.length() > 0) {
+                client.send(messages.toString());
+            }
+
+        } catch (JSONException ex) {
+            Logger.e(TAG, "Subscription Failed", ex);
+        }
+    }
+
+    private JSONObject createSubscriptionMessage(String metaChannel, Collection<String> channels)
+            throws JSONException {
+
+        JSONObject json = new JSONObject();
+        json.put(KEY_CHANNEL, metaChannel);
+        json.put(KEY_CLIENT_ID, fayeClientId);
+
+        if (channels.size() == 1) {
+            json.put(KEY_SUBSCRIPTION, channels.iterator().next());
+        } else {
+            json.put(KEY_SUBSCRIPTION, new JSONArray(channels));
+        }
+
+        if (SUBSCRIBE_CHANNEL.equals(metaChannel) && null != connectionExtension) {
+            // XXX Put the extensions on the object instead of inside KEY_EXT
+            final Iterator<String> it = connectionExtension.keys();
+
+            while (it.hasNext()) {
+                final String key = it.next();
+
+                json.put(key, connectionExtension.get(key));
+            }
+            // - XXX
+
+            json.put(KEY_EXT, connectionExtension);
+        }
+
+        return json;
+    }
+
     /**
      * Publish events on a channel by sending an event message
      * <p>
@@ -466,10 +722,20 @@ public class FayeClient implements Listener {
                         ((UnauthorizedException) error).getAuthenticationError();
                 fayeListener.onAuthenticationError(authenticationError);
             }
+
+            // Retrying with the same credentials would fail again
+            stopConnectionMonitor();
             return;
         }
 
         if (!connected) {
+
+            if (awaitingConnection) {
+                // The attempt failed, move on to the backoff delay without waiting any longer
+                getHandler().removeCallbacks(connectionMonitor);
+                getHandler().post(connectionMonitor);
+            }
+
             return;
         }
 
@@ -483,139 +749,308 @@ public class FayeClient implements Listener {
     }
 
     /**
-     * Parse the Faye message and call the appropriate
-     * listener method.
+     * Parse the Faye messages of a frame in a single streaming pass and call the
+     * appropriate listener method for each of them.
      *
      * @param message A json string from the Faye server
      */
     private void parseFayeMessage(String message) {
 
-        try {
+        Logger.d(TAG, "Message received: %s", message);
 
-            JSONArray messageArray = new JSONArray(message);
+        JsonReader reader = new JsonReader(new StringReader(message));
 
-            for (int i = 0; i < messageArray.length(); i++) {
+        try {
 
-                JSONObject fayeMessage = messageArray.optJSONObject(i);
+            reader.beginArray();
 
-                if (fayeMessage == null) {
-                    continue;
-                }
+            while (reader.hasNext()) {
+                parseFayeMessage(reader);
+            }
 
-                String channel = fayeMessage.optString(KEY_CHANNEL);
-                boolean success = fayeMessage.optBoolean(KEY_SUCCESS);
+            reader.endArray();
 
-                if (channel.equals(HANDSHAKE_CHANNEL)) {
+        } catch (IOException | IllegalStateException | JsonParseException ex) {
+            Logger.e(TAG, "Could not parse faye message", ex);
+        }
+    }
 
-                    if (success) {
+    /**
+     * Parse a single Faye message and call the appropriate listener method.
+     * <p>
+     * The data of a message on a subscribed channel is handed to the listener
+     * straight from the reader. If the data precedes the channel of the message
+     * it is buffered until the channel is known.
+     *
+     * @param reader The reader positioned at the Faye message
+     * @throws IOException if the message could not be read
+     */
+    private void parseFayeMessage(JsonReader reader) throws IOException {
 
-                        fayeClientId = fayeMessage.optString(KEY_CLIENT_ID);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
 
-                        if (fayeListener != null) {
-                            fayeListener.connectedToServer();
-                        }
+        String channel = null;
+        boolean success = false;
+        String clientId = "";
+        String error = "";
+        List<String> subscriptions = Collections.emptyList();
+        JsonElement bufferedData = null;
 
-                        connect();
-                        subscribe();
+        reader.beginObject();
 
+        while (reader.hasNext()) {
+
+            switch (reader.nextName()) {
+                case KEY_CHANNEL:
+                    channel = nextString(reader);
+                    break;
+                case KEY_SUCCESS:
+                    success = nextBoolean(reader);
+                    break;
+                case KEY_CLIENT_ID:
+                    clientId = nextString(reader);
+                    break;
+                case KEY_ERROR:
+                    error = nextString(reader);
+                    break;
+                case KEY_SUBSCRIPTION:
+                    subscriptions = nextStrings(reader);
+                    break;
+                case KEY_DATA:
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                    } else if (channel == null) {
+                        bufferedData = JsonParser.parseReader(reader);
+                    } else if (!dispatchData(channel, reader)) {
+                        reader.skipValue();
                     }
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
 
-                    return;
-                }
+        reader.endObject();
 
-                if (channel.equals(CONNECT_CHANNEL)) {
+        if (channel == null) {
+            return;
+        }
 
-                    if (success) {
+        if (channel.equals(HANDSHAKE_CHANNEL)) {
 
-                        connected = true;
-                        connect();
+            if (success) {
 
-                    } else {
-                        final String error = fayeMessage.optString(KEY_ERROR);
-                        @SuppressLint("DefaultLocale")
-                        final String unknownClientError = String.format(
-                                "%d:%s:%s",
-                                401,
-                                fayeClientId,
-                                ERROR_UNKNOWN_CLIENT
-                        );
-
-                        if (error != null && error.equals(unknownClientError)) {
-                            onError(new Exception("Faye connect error: " + ERROR_UNKNOWN_CLIENT));
-
-                            if (fayeListener != null) {
-                                fayeListener.disconnectedFromServer();
-                            }
-                        }
-                    }
-                    return;
+                fayeClientId = clientId;
+
+                if (fayeListener != null) {
+                    fayeListener.connectedToServer();
                 }
 
-                if (channel.equals(DISCONNECT_CHANNEL)) {
+                connect();
+                subscribe();
+
+            }
+
+            return;
+        }
 
-                    if (success) {
+        if (channel.equals(CONNECT_CHANNEL)) {
 
-                        connected = false;
-                        closeWebSocketConnection();
+            if (success) {
 
-                        if (fayeListener != null) {
-                            fayeListener.disconnectedFromServer();
-                        }
+                connected = true;
+                connect();
 
+            } else {
+                @SuppressLint("DefaultLocale")
+                final String unknownClientError = String.format(
+                        "%d:%s:%s",
+                        401,
+                        fayeClientId,
+                        ERROR_UNKNOWN_CLIENT
+                );
+
+                if (error.equals(unknownClientError)) {
+                    onError(new Exception("Faye connect error: " + ERROR_UNKNOWN_CLIENT));
+
+                    if (fayeListener != null) {
+                        fayeListener.disconnectedFromServer();
                     }
+                }
+            }
+            return;
+        }
 
-                    return;
+        if (channel.equals(DISCONNECT_CHANNEL)) {
+
+            if (success) {
+
+                connected = false;
+                closeWebSocketConnection();
+
+                if (fayeListener != null) {
+                    fayeListener.disconnectedFromServer();
                 }
 
-                if (channel.equals(SUBSCRIBE_CHANNEL)) {
+            }
+
+            return;
+        }
+
+        if (channel.equals(SUBSCRIBE_CHANNEL)) {
 
-                    if (success) {
+            if (fayeListener != null) {
 
-                        if (fayeListener != null) {
-                            fayeListener.subscribedToChannel(fayeMessage.optString(KEY_SUBSCRIPTION));
-                        }
+                if (success) {
 
+                    for (String subscription : subscriptions) {
+                        fayeListener.subscribedToChannel(subscription);
                     }
 
-                    return;
+                } else {
+                    fayeListener.subscriptionFailedWithError(error);
                 }
+            }
 
-                if (channel.equals(UNSUBSCRIBE_CHANNEL)) {
-                    return;
-                }
+            return;
+        }
 
-                if (isSubscribedToChannel(channel)) {
+        if (channel.equals(UNSUBSCRIBE_CHANNEL)) {
+            return;
+        }
 
-                    JSONObject data = fayeMessage.optJSONObject(KEY_DATA);
+        if (bufferedData != null) {
+            dispatchData(channel, new JsonReader(new StringReader(bufferedData.toString())));
+        }
+    }
 
-                    if (data != null && fayeListener != null) {
-                        fayeListener.messageReceived(data);
-                    }
+    /**
+     * Hand the data of a message to the listener of its channel. The data of a
+     * message on the main channel goes to the {@link FayeListener}, otherwise
+     * it goes to the listener of the first additional channel that matches.
+     *
+     * @param channel The channel of the message
+     * @param reader  The reader positioned at the data of the message
+     * @return True if the data was consumed by a listener, false otherwise
+     * @throws IOException if the data could not be read
+     */
+    private boolean dispatchData(String channel, JsonReader reader) throws IOException {
 
-                    return;
-                }
+        if (isSubscribedToChannel(activeSubChannel, channel)) {
 
+            if (fayeListener == null) {
+                return false;
             }
 
-        } catch (JSONException ex) {
-            Logger.e(TAG, "Could not parse faye message", ex);
+            fayeListener.messageReceived(reader);
+            return true;
         }
+
+        ChannelListener listener = channelListeners.get(channel);
+
+        if (listener == null) {
+
+            for (Map.Entry<String, ChannelListener> entry : channelListeners.entrySet()) {
+
+                if (isSubscribedToChannel(entry.getKey(), channel)) {
+                    listener = entry.getValue();
+                    break;
+                }
+            }
+        }
+
+        if (listener == null) {
+            return false;
+        }
+
+        listener.messageReceived(channel, reader);
+        return true;
     }
 
     /**
-     * Checks to see if we are subscribed to the passed in channel
+     * Reads the next value as a string in the same way as {@link JSONObject#optString(String)}
      *
-     * @param channel Name of channel to check
-     * @return True if we are connected to the passed in channel, false
+     * @param reader The reader positioned at the value
+     * @return The value as a string, or an empty string if it is null or not a primitive
+     * @throws IOException if the value could not be read
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            return token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+        }
+
+        reader.skipValue();
+        return "";
+    }
+
+    /**
+     * Reads the next value as a list of strings, accepting either a single
+     * value or an array of values
+     *
+     * @param reader The reader positioned at the value
+     * @return The values as strings
+     * @throws IOException if the value could not be read
+     */
+    private static List<String> nextStrings(JsonReader reader) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            return Collections.singletonList(nextString(reader));
+        }
+
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+            values.add(nextString(reader));
+        }
+
+        reader.endArray();
+        return values;
+    }
+
+    /**
+     * Reads the next value as a boolean in the same way as {@link JSONObject#optBoolean(String)}
+     *
+     * @param reader The reader positioned at the value
+     * @return The value as a boolean, or false if it is not a boolean
+     * @throws IOException if the value could not be read
+     */
+    private static boolean nextBoolean(JsonReader reader) throws IOException {
+
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        } else if (token == JsonToken.STRING) {
+            return "true".equalsIgnoreCase(reader.nextString());
+        }
+
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Checks to see if a subscription covers the passed in channel
+     *
+     * @param subscription Name of the subscribed channel, which may end with a wildcard
+     * @param channel      Name of channel to check
+     * @return True if the subscription covers the passed in channel, false
      * otherwise
      */
-    private boolean isSubscribedToChannel(String channel) {
+    private static boolean isSubscribedToChannel(String subscription, String channel) {
 
         boolean isSubscribed = false;
 
-        if (activeSubChannel != null && activeSubChannel.length() > 0 && channel != null && channel.length() > 0) {
+        if (subscription != null && subscription.length() > 0 && channel != null && channel.length() > 0) {
 
-            String[] subscribedChannelSegments = activeSubChannel.split("/");
+            String[] subscribedChannelSegments = subscription.split("/");
             String[] channelSegments = channel.split("/");
 
             int i = 0;
@@ -647,6 +1082,22 @@ public class FayeClient implements Listener {
         return isSubscribed;
     }
 
+    /**
+     * Listener of the messages published to an additional channel
+     */
+    public interface ChannelListener {
+
+        /**
+         * Invoked for the data of every message received on the channel
+         *
+         * @param channel The channel the message was published to
+         * @param data    The reader positioned at the data object of the message, which must be
+         *                consumed entirely
+         * @throws IOException if the data could not be read
+         */
+        void messageReceived(String channel, JsonReader data) throws IOException;
+    }
+
     public interface FayeListener {
         void connectedToServer();
 
@@ -658,6 +1109,13 @@ public class FayeClient implements Listener {
 
         void subscriptionFailedWithError(String error);
 
-        void messageReceived(JSONObject json);
+        /**
+         * Invoked for the data of every message received on a subscribed channel
+         *
+         * @param data The reader positioned at the data object of the message, which must be
+         *             consumed entirely
+         * @throws IOException if the data could not be read
+         */
+        void messageReceived(JsonReader data) throws IOException;
     }
 }
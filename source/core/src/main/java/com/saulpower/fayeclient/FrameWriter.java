@@ -0,0 +1,182 @@
+package com.saulpower.fayeclient;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.clarabridge.core.Logger;
+
+/**
+ * Writes the frames of a WebSocket connection on a thread dedicated to it.
+ * <p>
+ * Frames are queued in the order they are sent. Whenever the thread wakes up it drains every
+ * frame queued so far into a single buffered write followed by one flush, so that a burst of
+ * frames results in as few TCP writes as possible.
+ * <p>
+ * The queue is bounded: a connection that can not keep up with the frames sent to it is
+ * considered broken rather than holding on to an ever growing amount of memory.
+ */
+class FrameWriter {
+
+    private static final String TAG = "FrameWriter";
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Queued to stop the writer once the frames queued before it are written
+     */
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final OutputStream outputStream;
+    private final WebSocketClient client;
+    private final Thread thread;
+    private final AtomicReference<Closeable> closeOnExit = new AtomicReference<>();
+
+    private volatile boolean stopped;
+    private volatile boolean exited;
+    private volatile long writeLatency = -1;
+
+    /**
+     * @param outputStream the stream of the connection to write to
+     * @param client       the {@link WebSocketClient} to report write errors to
+     */
+    FrameWriter(OutputStream outputStream, WebSocketClient client) {
+        this.outputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        this.client = client;
+
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeFrames();
+            }
+        }, "websocket-writer");
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops writing frames once the frames already queued are written, then closes the given
+     * connection from the writer thread. Returns without waiting for the frames to be written. If
+     * no more frames can be queued the writer is interrupted instead, dropping the queued frames.
+     *
+     * @param connection the connection to close once the writer exits
+     */
+    void stopAndClose(Closeable connection) {
+        closeOnExit.set(connection);
+
+        if (stopped || !queue.offer(END)) {
+            stop();
+        }
+
+        if (exited) {
+            close(closeOnExit.getAndSet(null));
+        }
+    }
+
+    /**
+     * Stops writing frames. Frames still queued are dropped.
+     */
+    void stop() {
+        stopped = true;
+        queue.clear();
+        thread.interrupt();
+    }
+
+    /**
+     * Queues a frame to be written. Frames queued once the writer is stopped are dropped.
+     *
+     * @param frame the frame to write
+     * @return false if the queue is full, true otherwise
+     */
+    boolean enqueue(byte[] frame) {
+        return stopped || queue.offer(frame);
+    }
+
+    /**
+     * @return the number of frames waiting to be written
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the time taken to write and flush the last batch of frames, in milliseconds, or -1
+     * if nothing was written yet
+     */
+    long getWriteLatency() {
+        return writeLatency;
+    }
+
+    private void writeFrames() {
+        List<byte[]> batch = new ArrayList<>();
+
+        try {
+
+            while (!stopped) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+
+                long start = System.nanoTime();
+                int length = 0;
+                boolean end = false;
+
+                for (byte[] frame : batch) {
+                    if (frame == END) {
+                        end = true;
+                        break;
+                    }
+
+                    outputStream.write(frame);
+                    length += frame.length;
+                }
+
+                outputStream.flush();
+
+                writeLatency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                Logger.d(TAG, "Wrote %d frames (%d bytes) in %d ms, %d queued",
+                        batch.size(), length, writeLatency, queue.size());
+
+                batch.clear();
+
+                if (end) {
+                    return;
+                }
+            }
+
+        } catch (InterruptedException e) {
+            // Stopped while waiting for frames
+        } catch (IOException e) {
+            if (!stopped) {
+                stopped = true;
+                queue.clear();
+                client.onWriteError(e);
+            }
+        } finally {
+            exited = true;
+            close(closeOnExit.getAndSet(null));
+        }
+    }
+
+    private static void close(Closeable connection) {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (IOException e) {
+            Logger.e(TAG, "Error while closing the connection", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.saulpower.fayeclient;
+
+import android.os.Handler;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import com.clarabridge.core.Logger;
+
+/**
+ * Keeps a WebSocket connection alive and detects when it is no longer usable.
+ * <p>
+ * A ping is sent after every interval, and the connection is considered dead if the matching pong
+ * is not received before the timeout. This catches half-open connections, such as the ones left
+ * behind when a mobile network changes, which would otherwise only be noticed when a write fails.
+ * <p>
+ * The state is only accessed on the thread of the given {@link Handler}.
+ */
+class Heartbeat {
+
+    private static final String TAG = "Heartbeat";
+
+    private final Handler handler;
+    private final WebSocketClient client;
+    private final long interval;
+    private final long timeout;
+
+    private boolean running;
+    private int pingId;
+    private long pingSentAt;
+    private volatile long roundTripTime = -1;
+
+    private final Runnable pingTask = new Runnable() {
+
+        @Override
+        public void run() {
+            pingId++;
+            pingSentAt = System.nanoTime();
+            client.ping(String.valueOf(pingId));
+
+            handler.postDelayed(timeoutTask, timeout);
+        }
+    };
+
+    private final Runnable timeoutTask = new Runnable() {
+
+        @Override
+        public void run() {
+            Logger.w(TAG, "No pong received within %d ms, the connection is dead", timeout);
+
+            cancel();
+            client.onHeartbeatTimeout(new SocketTimeoutException("No pong received within " + timeout + " ms"));
+        }
+    };
+
+    /**
+     * @param handler  the {@link Handler} on which pings are sent
+     * @param client   the {@link WebSocketClient} of the connection to keep alive
+     * @param interval the time between a pong and the next ping, in milliseconds
+     * @param timeout  the time to wait for a pong before considering the connection dead, in
+     *                 milliseconds
+     */
+    Heartbeat(Handler handler, WebSocketClient client, long interval, long timeout) {
+        this.handler = handler;
+        this.client = client;
+        this.interval = interval;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts sending pings once the connection is established.
+     */
+    void start() {
+        handler.post(new Runnable() {
+
+            @Override
+            public void run() {
+                if (!running) {
+                    running = true;
+                    handler.postDelayed(pingTask, interval);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops sending pings, for instance when the connection is closed.
+     */
+    void stop() {
+        handler.post(new Runnable() {
+
+            @Override
+            public void run() {
+                cancel();
+            }
+        });
+    }
+
+    private void cancel() {
+        running = false;
+        handler.removeCallbacks(pingTask);
+        handler.removeCallbacks(timeoutTask);
+    }
+
+    /**
+     * Records the round trip time of a ping and schedules the next one.
+     *
+     * @param message the payload of the pong received
+     */
+    void onPong(final String message) {
+        final long receivedAt = System.nanoTime();
+
+        handler.post(new Runnable() {
+
+            @Override
+            public void run() {
+                // Unsolicited pongs and pongs to a ping that already timed out are ignored
+                if (!running || !String.valueOf(pingId).equals(message)) {
+                    return;
+                }
+
+                handler.removeCallbacks(timeoutTask);
+
+                roundTripTime = TimeUnit.NANOSECONDS.toMillis(receivedAt - pingSentAt);
+                Logger.d(TAG, "Pong received after %d ms", roundTripTime);
+
+                handler.postDelayed(pingTask, interval);
+            }
+        });
+    }
+
+    /**
+     * @return the round trip time of the last ping answered, in milliseconds, or -1 if no ping
+     * was answered yet
+     */
+    long getRoundTripTime() {
+        return roundTripTime;
+    }
+}
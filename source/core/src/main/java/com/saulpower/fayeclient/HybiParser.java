@@ -30,11 +30,10 @@
 
 package com.saulpower.fayeclient;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.List;
 
@@ -43,6 +42,19 @@ import com.clarabridge.core.Logger;
 public class HybiParser {
 
     private static final String TAG = "HybiParser";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The initial capacity of the message buffer, which is large enough for most Faye messages
+     */
+    private static final int MESSAGE_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The capacity above which the message buffer is released once the message has been emitted,
+     * so that a single large message does not keep its buffer alive for the whole connection
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CONTROL_PAYLOAD_LENGTH = 125;
 
     private WebSocketClient client;
 
@@ -51,18 +63,31 @@ public class HybiParser {
     private int stage;
 
     private boolean finalFragment;
+    private boolean compressed;
     private boolean masked;
     private int opCode;
     private int lengthSize;
     private int length;
     private int mode;
 
-    private byte[] mask = new byte[0];
-    private byte[] payload = new byte[0];
+    private final byte[] mask = new byte[4];
+
+    /**
+     * Holds the payload of the data frames of the current message, fragments being appended to
+     * each other in place
+     */
+    private byte[] messageBuffer = new byte[MESSAGE_BUFFER_SIZE];
+    private int messageLength;
+
+    /**
+     * Holds the payload of the current control frame, which may arrive between the fragments of
+     * a data message
+     */
+    private final byte[] controlBuffer = new byte[MAX_CONTROL_PAYLOAD_LENGTH];
 
     private boolean closed = false;
 
-    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private PerMessageDeflate perMessageDeflate;
 
     private static final int BYTE = 255;
     private static final int FIN = 128;
@@ -100,15 +125,21 @@ public class HybiParser {
         this.client = client;
     }
 
-    private static byte[] mask(byte[] payload, byte[] mask, int offset) {
-        if (mask.length == 0) {
-            return payload;
-        }
+    /**
+     * Enables the permessage-deflate extension once it has been negotiated during the handshake.
+     * Incoming messages are inflated if they are flagged as compressed, and outgoing data messages
+     * are deflated.
+     *
+     * @param perMessageDeflate the negotiated {@link PerMessageDeflate}
+     */
+    void setPerMessageDeflate(PerMessageDeflate perMessageDeflate) {
+        this.perMessageDeflate = perMessageDeflate;
+    }
 
-        for (int i = 0; i < payload.length - offset; i++) {
-            payload[offset + i] = (byte) (payload[offset + i] ^ mask[i % 4]);
+    private static void mask(byte[] payload, byte[] mask, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            payload[offset + i] = (byte) (payload[offset + i] ^ mask[i & 3]);
         }
-        return payload;
     }
 
     public void start(HappyDataInputStream stream) throws IOException {
@@ -127,14 +158,14 @@ public class HybiParser {
                     parseLength(stream.readByte());
                     break;
                 case 2:
-                    parseExtendedLength(stream.readBytes(lengthSize));
+                    parseExtendedLength(stream);
                     break;
                 case 3:
-                    mask = stream.readBytes(4);
+                    stream.readFully(mask);
                     stage = 4;
                     break;
                 case 4:
-                    payload = stream.readBytes(length);
+                    readPayload(stream);
                     emitFrame();
                     stage = 0;
                     break;
@@ -152,19 +183,30 @@ public class HybiParser {
         boolean rsv2 = (data & RSV2) == RSV2;
         boolean rsv3 = (data & RSV3) == RSV3;
 
-        if (rsv1 || rsv2 || rsv3) {
+        if (rsv2 || rsv3) {
             throw new ProtocolError("RSV not zero");
         }
 
         finalFragment = (data & FIN) == FIN;
         opCode = (data & OPCODE);
-        mask = new byte[0];
-        payload = new byte[0];
 
         if (!OPCODES.contains(opCode)) {
             throw new ProtocolError("Bad opcode");
         }
 
+        // RSV1 flags a compressed message, and is only set on the first frame of a data message
+        if (rsv1 && (perMessageDeflate == null || (opCode != OP_TEXT && opCode != OP_BINARY))) {
+            throw new ProtocolError("RSV not zero");
+        }
+
+        if (opCode == OP_TEXT || opCode == OP_BINARY) {
+            if (mode != 0) {
+                throw new ProtocolError("Expected continuation frame");
+            }
+
+            compressed = rsv1;
+        }
+
         if (!FRAGMENTED_OPCODES.contains(opCode) && !finalFragment) {
             throw new ProtocolError("Expected non-final packet");
         }
@@ -172,24 +214,69 @@ public class HybiParser {
         stage = 1;
     }
 
-    private void parseLength(byte data) {
+    private void parseLength(byte data) throws ProtocolError {
 
         masked = (data & MASK) == MASK;
         length = (data & LENGTH);
 
         if (length >= 0 && length <= 125) {
             stage = masked ? 3 : 4;
+        } else if (!FRAGMENTED_OPCODES.contains(opCode)) {
+            throw new ProtocolError("Control frame payload too large");
         } else {
             lengthSize = (length == 126) ? 2 : 8;
             stage = 2;
         }
     }
 
-    private void parseExtendedLength(byte[] buffer) throws ProtocolError {
-        length = getInteger(buffer);
+    private void parseExtendedLength(HappyDataInputStream stream) throws IOException {
+        long extendedLength = (lengthSize == 2) ? stream.readUnsignedShort() : stream.readLong();
+
+        if (extendedLength < 0 || extendedLength > Integer.MAX_VALUE - messageLength) {
+            throw new ProtocolError("Bad integer: " + extendedLength);
+        }
+
+        length = (int) extendedLength;
         stage = masked ? 3 : 4;
     }
 
+    /**
+     * Reads the payload of the current frame, appending data frames to the message buffer and
+     * reading control frames into the control buffer, and unmasks it in place.
+     */
+    private void readPayload(HappyDataInputStream stream) throws IOException {
+        byte[] target;
+        int offset;
+
+        if (FRAGMENTED_OPCODES.contains(opCode)) {
+            ensureMessageCapacity(messageLength + length);
+            target = messageBuffer;
+            offset = messageLength;
+        } else {
+            target = controlBuffer;
+            offset = 0;
+        }
+
+        stream.readFully(target, offset, length);
+
+        if (masked) {
+            mask(target, mask, offset, length);
+        }
+    }
+
+    private void ensureMessageCapacity(int capacity) {
+        if (capacity <= messageBuffer.length) {
+            return;
+        }
+
+        int newCapacity = messageBuffer.length;
+        while (newCapacity < capacity) {
+            newCapacity = (newCapacity > Integer.MAX_VALUE / 2) ? Integer.MAX_VALUE : newCapacity * 2;
+        }
+
+        messageBuffer = Arrays.copyOf(messageBuffer, newCapacity);
+    }
+
     public byte[] frame(String data) {
         return frame(data, OP_TEXT, -1);
     }
@@ -213,6 +300,19 @@ public class HybiParser {
         }
 
         byte[] buffer = (data instanceof String) ? decode((String) data) : (byte[]) data;
+        boolean deflate = perMessageDeflate != null
+                && (opcode == OP_TEXT || opcode == OP_BINARY)
+                && perMessageDeflate.shouldCompress(buffer.length);
+
+        if (deflate) {
+            try {
+                buffer = perMessageDeflate.deflate(buffer);
+            } catch (ProtocolError e) {
+                Logger.e(TAG, "Unable to compress message", e);
+                return null;
+            }
+        }
+
         int insert = (errorCode > 0) ? 2 : 0;
         int length = buffer.length + insert;
         int header = (length <= 125) ? 2 : (length <= 65535 ? 4 : 10);
@@ -220,7 +320,7 @@ public class HybiParser {
         int masked = masking ? MASK : 0;
         byte[] frame = new byte[length + offset];
 
-        frame[0] = (byte) ((byte) FIN | (byte) opcode);
+        frame[0] = (byte) ((byte) FIN | (byte) opcode | (byte) (deflate ? RSV1 : 0));
 
         if (length <= 125) {
 
@@ -261,14 +361,14 @@ public class HybiParser {
 
             System.arraycopy(mask, 0, frame, header, mask.length);
 
-            mask(frame, mask, offset);
+            mask(frame, mask, offset, frame.length - offset);
         }
 
         return frame;
     }
 
     public void ping(String message) {
-        client.send(frame(message, OP_PING, -1));
+        client.sendFrame(frame(message, OP_PING, -1));
     }
 
     public void close(int code, String reason) {
@@ -283,7 +383,6 @@ public class HybiParser {
 
     private void emitFrame() throws IOException {
 
-        byte[] payload = mask(this.payload, mask, 0);
         int opcode = opCode;
 
         if (opcode == OP_CONTINUATION) {
@@ -292,44 +391,25 @@ public class HybiParser {
                 throw new ProtocolError("Mode was not set.");
             }
 
-            buffer.write(payload);
+            messageLength += length;
 
             if (finalFragment) {
-
-                byte[] message = buffer.toByteArray();
-
-                if (mode == MODE_TEXT) {
-                    client.getListener().onMessage(encode(message));
-                } else {
-                    client.getListener().onMessage(message);
-                }
-
-                reset();
+                emitMessage();
             }
 
-        } else if (opcode == OP_TEXT) {
-
-            if (finalFragment) {
-                String messageText = encode(payload);
-                client.getListener().onMessage(messageText);
-            } else {
-                mode = MODE_TEXT;
-                buffer.write(payload);
-            }
+        } else if (opcode == OP_TEXT || opcode == OP_BINARY) {
 
-        } else if (opcode == OP_BINARY) {
+            mode = (opcode == OP_TEXT) ? MODE_TEXT : MODE_BINARY;
+            messageLength += length;
 
             if (finalFragment) {
-                client.getListener().onMessage(payload);
-            } else {
-                mode = MODE_BINARY;
-                buffer.write(payload);
+                emitMessage();
             }
 
         } else if (opcode == OP_CLOSE) {
 
-            int code = (payload.length >= 2) ? 256 * payload[0] + payload[1] : 0;
-            String reason = (payload.length > 2) ? encode(slice(payload, 2)) : null;
+            int code = (length >= 2) ? ((controlBuffer[0] & BYTE) << 8) | (controlBuffer[1] & BYTE) : 0;
+            String reason = (length > 2) ? new String(controlBuffer, 2, length - 2, UTF_8) : null;
 
             Logger.i(TAG, "Got close op! " + code + " " + reason);
 
@@ -337,77 +417,54 @@ public class HybiParser {
 
         } else if (opcode == OP_PING) {
 
-            if (payload.length > 125) {
-                throw new ProtocolError("Ping payload too large");
-            }
-
             Logger.i(TAG, "Sending pong!!");
 
-            client.sendFrame(frame(payload, OP_PONG, -1));
+            client.sendFrame(frame(Arrays.copyOf(controlBuffer, length), OP_PONG, -1));
 
         } else if (opcode == OP_PONG) {
 
-            String message = encode(payload);
-            // FIXME: Fire callback...
-            Logger.i(TAG, "Got pong! " + message);
+            String message = new String(controlBuffer, 0, length, UTF_8);
+            client.onPong(message);
         }
     }
 
-    private void reset() {
-        mode = 0;
-        buffer.reset();
-    }
-
-    private String encode(byte[] buffer) {
-
-        try {
+    /**
+     * Emits the message held in the message buffer to the listener, inflating it first if it was
+     * compressed. Text is decoded straight from the buffer.
+     */
+    private void emitMessage() throws ProtocolError {
 
-            return new String(buffer, "UTF-8");
+        byte[] message = messageBuffer;
+        int messageSize = messageLength;
 
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+        if (compressed) {
+            message = perMessageDeflate.inflate(messageBuffer, 0, messageLength);
+            messageSize = message.length;
         }
-    }
-
-    private byte[] decode(String string) {
 
         try {
-
-            return (string).getBytes("UTF-8");
-
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+            if (mode == MODE_TEXT) {
+                client.getListener().onMessage(new String(message, 0, messageSize, UTF_8));
+            } else {
+                // The message buffer is reused, so binary messages are handed over as a copy
+                client.getListener().onMessage(compressed ? message : Arrays.copyOf(message, messageSize));
+            }
+        } finally {
+            reset();
         }
     }
 
-    private int getInteger(byte[] bytes) throws ProtocolError {
-
-        long i = byteArrayToLong(bytes, 0, bytes.length);
+    private void reset() {
+        mode = 0;
+        messageLength = 0;
 
-        if (i < 0 || i > Integer.MAX_VALUE) {
-            throw new ProtocolError("Bad integer: " + i);
+        if (messageBuffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            messageBuffer = new byte[MESSAGE_BUFFER_SIZE];
         }
-
-        return (int) i;
     }
 
-    private byte[] slice(byte[] array, int start) {
-        return copyOfRange(array, start, array.length);
-    }
-
-    private byte[] copyOfRange(byte[] original, int from, int to) {
-
-        int newLength = to - from;
-
-        if (newLength < 0) {
-            throw new IllegalArgumentException(from + " > " + to);
-        }
-
-        byte[] copy = new byte[newLength];
-        System.arraycopy(original, from, copy, 0,
-                Math.min(original.length - from, newLength));
-
-        return copy;
+    private byte[] decode(String string) {
+        return string.getBytes(UTF_8);
     }
 
     public static class ProtocolError extends IOException {
@@ -419,23 +476,6 @@ public class HybiParser {
         }
     }
 
-    private static long byteArrayToLong(byte[] b, int offset, int length) {
-
-        if (b.length < length) {
-            throw new IllegalArgumentException("length must be less than or equal to b.length");
-        }
-
-        long value = 0;
-
-        for (int i = 0; i < length; i++) {
-
-            int shift = (length - 1 - i) * 8;
-            value += (b[i + offset] & 0x000000FF) << shift;
-        }
-
-        return value;
-    }
-
     public static class HappyDataInputStream extends DataInputStream {
 
         public HappyDataInputStream(InputStream in) {
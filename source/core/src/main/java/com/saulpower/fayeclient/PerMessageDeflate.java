@@ -0,0 +1,232 @@
+package com.saulpower.fayeclient;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Implementation of the permessage-deflate WebSocket extension described in RFC 7692.
+ * <p>
+ * An instance holds the compression state of a single connection, and must not be shared between
+ * connections. The extension is offered through {@link #getOffer()} and only used once the server
+ * has accepted it through {@link #accept(String)}.
+ * <p>
+ * When context takeover is disabled, both sides are asked to reset their compression context after
+ * every message. This lowers the memory held by the connection at the cost of a lower compression
+ * ratio for small messages.
+ */
+public class PerMessageDeflate {
+
+    static final String EXTENSION_NAME = "permessage-deflate";
+
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+    private static final int BUFFER_SIZE = 1024;
+    private static final int MIN_WINDOW_BITS = 8;
+    private static final int MAX_WINDOW_BITS = 15;
+
+    /**
+     * Messages shorter than this are sent uncompressed, as the deflate overhead outweighs the saving
+     */
+    private static final int MIN_COMPRESSED_LENGTH = 64;
+
+    private final boolean contextTakeover;
+
+    private boolean clientNoContextTakeover;
+    private boolean serverNoContextTakeover;
+    private Inflater inflater;
+    private Deflater deflater;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Creates an instance of {@link PerMessageDeflate}
+     *
+     * @param contextTakeover true if the compression context should be kept between messages,
+     *                        false to ask both sides to compress every message on its own
+     */
+    public PerMessageDeflate(boolean contextTakeover) {
+        this.contextTakeover = contextTakeover;
+    }
+
+    /**
+     * @return the value of the Sec-WebSocket-Extensions header offering this extension
+     */
+    String getOffer() {
+        if (contextTakeover) {
+            return EXTENSION_NAME;
+        }
+
+        return EXTENSION_NAME + "; " + CLIENT_NO_CONTEXT_TAKEOVER + "; " + SERVER_NO_CONTEXT_TAKEOVER;
+    }
+
+    /**
+     * Validates the parameters of the extension accepted by the server and prepares the
+     * compression state accordingly.
+     *
+     * @param response the value of the Sec-WebSocket-Extensions header sent by the server
+     * @return true if the server accepted the extension, false if it did not
+     * @throws HybiParser.ProtocolError if the server responded with an extension or a parameter
+     *                                  that was not offered
+     */
+    synchronized boolean accept(String response) throws HybiParser.ProtocolError {
+        boolean accepted = false;
+
+        for (String extension : response.split(",")) {
+            String[] params = extension.split(";");
+
+            if (!EXTENSION_NAME.equalsIgnoreCase(params[0].trim())) {
+                throw new HybiParser.ProtocolError("Unsupported extension: " + params[0].trim());
+            }
+
+            if (accepted) {
+                throw new HybiParser.ProtocolError("Extension accepted more than once");
+            }
+
+            for (int i = 1; i < params.length; i++) {
+                String[] param = params[i].split("=", 2);
+                String name = param[0].trim();
+                String value = param.length > 1 ? param[1].trim().replace("\"", "") : null;
+
+                if (CLIENT_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(name)) {
+                    clientNoContextTakeover = true;
+                } else if (SERVER_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(name)) {
+                    serverNoContextTakeover = true;
+                } else if (SERVER_MAX_WINDOW_BITS.equalsIgnoreCase(name)) {
+                    // A smaller window on the server side can always be inflated with the default one
+                    validateWindowBits(value);
+                } else {
+                    // The window of the Deflater can not be configured, so a client_max_window_bits
+                    // parameter is never offered and must not be in the response
+                    throw new HybiParser.ProtocolError("Unexpected extension parameter: " + name);
+                }
+            }
+
+            accepted = true;
+        }
+
+        if (accepted) {
+            inflater = new Inflater(true);
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+
+        return accepted;
+    }
+
+    /**
+     * @param length the length of the payload of a message
+     * @return true if a message of the given length should be compressed
+     */
+    boolean shouldCompress(int length) {
+        return length >= MIN_COMPRESSED_LENGTH;
+    }
+
+    /**
+     * Compresses the payload of a message, removing the tail that the server appends back
+     * before inflating it.
+     *
+     * @param data the payload to compress
+     * @return the compressed payload
+     * @throws HybiParser.ProtocolError if compression is not in use
+     */
+    synchronized byte[] deflate(byte[] data) throws HybiParser.ProtocolError {
+        if (deflater == null) {
+            throw new HybiParser.ProtocolError("Compression was not negotiated");
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2 + TAIL.length);
+        deflater.setInput(data);
+
+        int count;
+        do {
+            count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            output.write(buffer, 0, count);
+        } while (count == buffer.length);
+
+        if (clientNoContextTakeover) {
+            deflater.reset();
+        }
+
+        byte[] compressed = output.toByteArray();
+        return Arrays.copyOf(compressed, compressed.length - TAIL.length);
+    }
+
+    /**
+     * Decompresses the payload of a message.
+     *
+     * @param data   the buffer holding the compressed payload, without its tail
+     * @param offset the offset of the payload in the buffer
+     * @param length the length of the payload
+     * @return the decompressed payload
+     * @throws HybiParser.ProtocolError if compression is not in use or the payload is not valid
+     *                                  deflate data
+     */
+    synchronized byte[] inflate(byte[] data, int offset, int length) throws HybiParser.ProtocolError {
+        if (inflater == null) {
+            throw new HybiParser.ProtocolError("Compression was not negotiated");
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(length * 4);
+
+        try {
+            inflate(data, offset, length, output);
+            inflate(TAIL, 0, TAIL.length, output);
+        } catch (DataFormatException e) {
+            throw new HybiParser.ProtocolError("Invalid compressed message: " + e.getMessage());
+        }
+
+        if (serverNoContextTakeover || inflater.finished()) {
+            inflater.reset();
+        }
+
+        return output.toByteArray();
+    }
+
+    private void inflate(byte[] data, int offset, int length, ByteArrayOutputStream output)
+            throws DataFormatException {
+        inflater.setInput(data, offset, length);
+
+        while (!inflater.needsInput()) {
+            int count = inflater.inflate(buffer);
+
+            if (count == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                break;
+            }
+
+            output.write(buffer, 0, count);
+        }
+    }
+
+    private void validateWindowBits(String value) throws HybiParser.ProtocolError {
+        try {
+            int bits = Integer.parseInt(value);
+
+            if (bits >= MIN_WINDOW_BITS && bits <= MAX_WINDOW_BITS) {
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+
+        throw new HybiParser.ProtocolError("Invalid " + SERVER_MAX_WINDOW_BITS + ": " + value);
+    }
+
+    /**
+     * Releases the native resources held by the compression state.
+     */
+    synchronized void release() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+}
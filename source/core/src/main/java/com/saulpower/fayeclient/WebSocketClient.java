@@ -4,9 +4,9 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.text.TextUtils;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.URI;
@@ -32,20 +32,38 @@ public class WebSocketClient {
 
     private static final String TAG = "WebSocketClient";
     private static final int SC_SWITCHING_PROTOCOLS = 101;
+    private static final long WRITER_STOP_TIMEOUT = 1000L;
     private static TrustManager[] trustManagers;
-    private final Object sendLock = new Object();
+    private final Object frameLock = new Object();
     private URI uri;
     private Listener listener;
     private Socket socket;
     private Thread thread;
     private Handler handler;
-    private Handler uiHandler;
+    private Handler listenerHandler;
     private HybiParser parser;
+    private PerMessageDeflate perMessageDeflate;
+    private Heartbeat heartbeat;
+    private volatile FrameWriter writer;
 
-    public WebSocketClient(Handler uiHandler, URI uri, Listener listener) {
-        this.uiHandler = uiHandler;
+    public WebSocketClient(Handler listenerHandler, URI uri, Listener listener) {
+        this(listenerHandler, uri, listener, null);
+    }
+
+    /**
+     * Creates a new WebSocket client
+     *
+     * @param listenerHandler   the {@link Handler} on which the {@link Listener} is notified
+     * @param uri               the URI of the WebSocket server
+     * @param listener          the {@link Listener} notified of the events of the connection
+     * @param perMessageDeflate the {@link PerMessageDeflate} extension to offer during the
+     *                          handshake, or null to not compress messages
+     */
+    public WebSocketClient(Handler listenerHandler, URI uri, Listener listener, PerMessageDeflate perMessageDeflate) {
+        this.listenerHandler = listenerHandler;
         this.uri = uri;
         this.listener = listener;
+        this.perMessageDeflate = perMessageDeflate;
         parser = new HybiParser(this);
 
         HandlerThread handlerThread = BackgroundThread.get();
@@ -56,8 +74,49 @@ public class WebSocketClient {
         trustManagers = tm;
     }
 
+    /**
+     * Enables the heartbeat of the connection. Must be called before {@link #connect()}.
+     *
+     * @param interval the time between a pong and the next ping, in milliseconds. The heartbeat
+     *                 is disabled if it is not positive
+     * @param timeout  the time to wait for a pong before the connection is considered dead and
+     *                 {@link Listener#onError(Exception)} is called, in milliseconds
+     */
+    public void setHeartbeat(long interval, long timeout) {
+        heartbeat = interval > 0 ? new Heartbeat(handler, this, interval, timeout) : null;
+    }
+
+    /**
+     * @return the round trip time of the last ping answered on this connection, in milliseconds,
+     * or -1 if none was answered yet
+     */
+    public long getRoundTripTime() {
+        return heartbeat != null ? heartbeat.getRoundTripTime() : -1;
+    }
+
+    /**
+     * @return the number of frames waiting to be written to the connection
+     */
+    public int getSendQueueDepth() {
+        FrameWriter writer = this.writer;
+        return writer != null ? writer.getQueueDepth() : 0;
+    }
+
+    /**
+     * @return the time taken to write and flush the last batch of frames, in milliseconds, or -1
+     * if nothing was written yet
+     */
+    public long getWriteLatency() {
+        FrameWriter writer = this.writer;
+        return writer != null ? writer.getWriteLatency() : -1;
+    }
+
+    /**
+     * @return a {@link Listener} that forwards every event to the listener of this client on the
+     * listener {@link Handler}, so that frames keep being read while earlier ones are processed
+     */
     public Listener getListener() {
-        return listener;
+        return dispatcher;
     }
 
     public void connect() {
@@ -98,11 +157,17 @@ public class WebSocketClient {
                     out.print("Sec-WebSocket-Version: 13\r\n");
                     out.print("Origin: " + origin.toString() + "\r\n");
 
+                    if (perMessageDeflate != null) {
+                        out.print("Sec-WebSocket-Extensions: " + perMessageDeflate.getOffer() + "\r\n");
+                    }
+
                     out.print("\r\n");
                     out.flush();
 
-                    HybiParser.HappyDataInputStream stream =
-                            new HybiParser.HappyDataInputStream(socket.getInputStream());
+                    // The same buffered stream is used for the response headers and the frames, so
+                    // nothing buffered past the headers is lost
+                    HybiParser.HappyDataInputStream stream = new HybiParser.HappyDataInputStream(
+                            new BufferedInputStream(socket.getInputStream()));
 
                     // Read HTTP response status line.
                     StatusLine statusLine = StatusLine.parseStatusLine(readLine(stream));
@@ -136,6 +201,15 @@ public class WebSocketClient {
                             }
 
                             validated = true;
+                        } else if (header.getName().equalsIgnoreCase("Sec-WebSocket-Extensions")) {
+
+                            if (perMessageDeflate == null) {
+                                throw new Exception("Unexpected Sec-WebSocket-Extensions header.");
+                            }
+
+                            if (perMessageDeflate.accept(header.getValue())) {
+                                parser.setPerMessageDeflate(perMessageDeflate);
+                            }
                         }
                     }
 
@@ -143,7 +217,14 @@ public class WebSocketClient {
                         throw new Exception("No Sec-WebSocket-Accept header.");
                     }
 
-                    listener.onConnect();
+                    writer = new FrameWriter(socket.getOutputStream(), WebSocketClient.this);
+                    writer.start();
+
+                    dispatcher.onConnect();
+
+                    if (heartbeat != null) {
+                        heartbeat.start();
+                    }
 
                     // Now decode websocket frames.
                     parser.start(stream);
@@ -167,7 +248,16 @@ public class WebSocketClient {
 
     private void onError(final Exception ex) {
 
-        uiHandler.post(new Runnable() {
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
+
+        FrameWriter writer = this.writer;
+        if (writer != null) {
+            writer.stop();
+        }
+
+        listenerHandler.post(new Runnable() {
 
             @Override
             public void run() {
@@ -210,8 +300,39 @@ public class WebSocketClient {
                             return;
                         }
 
-                        socket.close();
-                        socket = null;
+                        if (heartbeat != null) {
+                            heartbeat.stop();
+                        }
+
+                        final Socket socket = WebSocketClient.this.socket;
+                        FrameWriter writer = WebSocketClient.this.writer;
+                        WebSocketClient.this.socket = null;
+                        WebSocketClient.this.writer = null;
+
+                        if (writer != null) {
+                            // Let the frames sent before disconnecting, such as a close frame, go out
+                            // before the writer thread closes the socket, without waiting for it here
+                            writer.stopAndClose(socket);
+
+                            // A write stuck on a dead connection is only interrupted by closing the socket
+                            handler.postDelayed(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    try {
+                                        socket.close();
+                                    } catch (IOException ex) {
+                                        Logger.e(TAG, "Error while disconnecting", ex);
+                                    }
+                                }
+                            }, WRITER_STOP_TIMEOUT);
+                        } else {
+                            socket.close();
+                        }
+
+                        if (perMessageDeflate != null) {
+                            perMessageDeflate.release();
+                        }
 
                         if (BuildConfig.DEBUG) {
                             Logger.d(TAG, "socket closed");
@@ -228,11 +349,35 @@ public class WebSocketClient {
 
     public void send(String data) {
         Logger.i(TAG, "Sending message: " + data);
-        sendFrame(parser.frame(data));
+
+        // Frames are compressed in the order they are sent, so framing and queueing must not interleave
+        synchronized (frameLock) {
+            sendFrame(parser.frame(data));
+        }
     }
 
     public void send(byte[] data) {
-        sendFrame(parser.frame(data));
+        synchronized (frameLock) {
+            sendFrame(parser.frame(data));
+        }
+    }
+
+    void ping(String message) {
+        parser.ping(message);
+    }
+
+    void onPong(String message) {
+        if (heartbeat != null) {
+            heartbeat.onPong(message);
+        }
+    }
+
+    void onHeartbeatTimeout(Exception error) {
+        onError(error);
+    }
+
+    void onWriteError(IOException error) {
+        onError(error);
     }
 
     // Can't use BufferedReader because it buffers past the HTTP data.
@@ -275,26 +420,11 @@ public class WebSocketClient {
 
     void sendFrame(final byte[] frame) {
 
-        if (socket != null) {
-
-            handler.post(new Runnable() {
-
-                @Override
-                public void run() {
+        FrameWriter writer = this.writer;
 
-                    try {
-
-                        synchronized (sendLock) {
-                            OutputStream outputStream = socket.getOutputStream();
-                            outputStream.write(frame);
-                            outputStream.flush();
-                        }
-
-                    } catch (Exception e) {
-                        onError(e);
-                    }
-                }
-            });
+        if (socket != null && writer != null && frame != null && !writer.enqueue(frame)) {
+            Logger.e(TAG, "Send queue full, dropping the connection");
+            onError(new IOException("Send queue full"));
         }
     }
 
@@ -306,6 +436,54 @@ public class WebSocketClient {
         return context.getSocketFactory();
     }
 
+    private final Listener dispatcher = new Listener() {
+
+        @Override
+        public void onConnect() {
+            listenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onConnect();
+                }
+            });
+        }
+
+        @Override
+        public void onMessage(final String message) {
+            listenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onMessage(message);
+                }
+            });
+        }
+
+        @Override
+        public void onMessage(final byte[] data) {
+            listenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onMessage(data);
+                }
+            });
+        }
+
+        @Override
+        public void onDisconnect(final int code, final String reason) {
+            listenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onDisconnect(code, reason);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Exception error) {
+            WebSocketClient.this.onError(error);
+        }
+    };
+
     public interface Listener {
         void onConnect();
 
@@ -61,10 +61,11 @@ class ConversationListPresenter {
 
     /**
      * Get the list of the 10 more recently active {@link Conversation}s for the current user, sorted
-     * from most recently updated to last.
+     * from most recently updated to last. Conversations stored from a previous session are loaded
+     * without an internet connection.
      */
     void loadMoreConversationList() {
-        if (hasInternet.get() && hasMoreConversations()) {
+        if (hasMoreConversations()) {
             view.showLoadMoreView();
             useCase.getMoreConversationsList(new ClarabridgeChatCallback<List<Conversation>>() {
                 @Override
@@ -73,7 +74,7 @@ class ConversationListPresenter {
                     if (response.getStatus() == 200 && response.getData() != null && !response.getData().isEmpty()) {
                         // in case of a conversation list is returned.
                         view.showConversationList(response.getData());
-                    } else if (response.getStatus() != 200) {
+                    } else if (response.getStatus() != 200 && hasInternet.get()) {
                         // in case of an error is returned.
                         view.showErrorMessage();
                     }
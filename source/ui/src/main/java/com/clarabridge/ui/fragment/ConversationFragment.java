@@ -19,10 +19,7 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.content.res.ColorStateList;
 import android.content.res.Configuration;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.location.Location;
@@ -37,7 +34,6 @@ import android.os.Parcelable;
 import android.provider.MediaStore;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.exifinterface.media.ExifInterface;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
@@ -111,6 +107,7 @@ import com.clarabridge.ui.ConnectionStatus;
 import com.clarabridge.ui.R;
 import com.clarabridge.ui.adapter.MessageListAdapter;
 import com.clarabridge.ui.utils.DpVisitor;
+import com.clarabridge.ui.utils.ImagePipeline;
 import com.clarabridge.ui.widget.BackEventEditText;
 import com.clarabridge.ui.widget.EditTextBackListener;
 import com.clarabridge.ui.widget.ClarabridgeChatImageView;
@@ -194,6 +191,7 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
     private ConnectionStatus connectionStatus = ConnectionStatus.UNKNOWN;
     private ClarabridgeChatConnectionStatus clarabridgeChatConnectionStatus = ClarabridgeChatConnectionStatus.NOT_YET_INITIATED;
     private Handler handler = new Handler();
+    private ImagePipeline imagePipeline;
     private GoogleApiClient googleApiClient;
     private MessageAction pendingLocationAction;
     private Map<BannerState, Runnable> hideBannerRunnables = new HashMap<>();
@@ -915,19 +913,28 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
             public void run() {
                 restorePreferences();
 
-                int rotationAngle = getRotationAngle(currentPhotoPath);
-                Bitmap resizedImage = smartDecode(currentPhotoPath, rotationAngle);
+                final String photoPath = currentPhotoPath;
 
-                if (resizedImage == null) {
-                    Toast.makeText(getActivity(), R.string.ClarabridgeChat_problemSavingPhoto, Toast.LENGTH_SHORT).show();
-                    return;
-                }
+                getImagePipeline().prepare(photoPath, new ImagePipeline.Callback() {
+                    @Override
+                    public void onImagePrepared(@Nullable ImagePipeline.PreparedImage image) {
+                        if (!isAdded()) {
+                            deletePreparedImage(image);
+                            return;
+                        }
 
-                galleryAddPic();
-                uploadImage(resizedImage);
+                        if (image == null) {
+                            Toast.makeText(getActivity(), R.string.ClarabridgeChat_problemSavingPhoto, Toast.LENGTH_SHORT).show();
+                            return;
+                        }
 
-                Uri photoUri = new Uri.Builder().encodedPath(currentPhotoPath).build();
-                revokeUriPermissions(photoUri);
+                        galleryAddPic();
+                        uploadImage(image);
+
+                        Uri photoUri = new Uri.Builder().encodedPath(photoPath).build();
+                        revokeUriPermissions(photoUri);
+                    }
+                });
             }
         });
     }
@@ -1046,113 +1053,40 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
 
     private void processFile(File file) {
         if (FileUtils.getMimeType(file).startsWith("image")) {
-            String filePath = file.getPath();
-
-            int rotationAngle = getRotationAngle(filePath);
-            Bitmap image = smartDecode(filePath, rotationAngle);
+            getImagePipeline().prepare(file.getPath(), new ImagePipeline.Callback() {
+                @Override
+                public void onImagePrepared(@Nullable ImagePipeline.PreparedImage image) {
+                    if (!isAdded()) {
+                        deletePreparedImage(image);
+                        return;
+                    }
 
-            if (image == null) {
-                Toast.makeText(getActivity(), R.string.ClarabridgeChat_problemGettingPhoto, Toast.LENGTH_SHORT).show();
-                return;
-            }
+                    if (image == null) {
+                        Toast.makeText(getActivity(), R.string.ClarabridgeChat_problemGettingPhoto, Toast.LENGTH_SHORT).show();
+                        return;
+                    }
 
-            showPhotoConfirmationDialog(image);
+                    showPhotoConfirmationDialog(image);
+                }
+            });
         } else {
             uploadFile(file);
         }
     }
 
-    private int getRotationAngle(String imageLocation) {
-        try {
-            return getRotationAngle(new ExifInterface(imageLocation));
-        } catch (Exception ignored) {
-            // Intentionally empty
+    private ImagePipeline getImagePipeline() {
+        if (imagePipeline == null) {
+            imagePipeline = new ImagePipeline(getContext(),
+                    getResources().getDimensionPixelSize(R.dimen.ClarabridgeChat_imageMaxSize));
         }
 
-        return 0;
+        return imagePipeline;
     }
 
-    private int getRotationAngle(ExifInterface exif) {
-        String orientString = exif.getAttribute(ExifInterface.TAG_ORIENTATION);
-        int orientation = orientString != null ? Integer.parseInt(orientString) : ExifInterface.ORIENTATION_NORMAL;
-
-        if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
-            return 90;
+    private void deletePreparedImage(@Nullable ImagePipeline.PreparedImage image) {
+        if (image != null) {
+            getImagePipeline().deletePreparedFile(image.getFile());
         }
-
-        if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
-            return 180;
-        }
-
-        if (orientation == ExifInterface.ORIENTATION_ROTATE_270) {
-            return 270;
-        }
-
-        return 0;
-    }
-
-    private Bitmap scaleAndRotate(Bitmap bitmap, int rotationAngle) {
-        if (bitmap == null) {
-            return null;
-        }
-
-        if (rotationAngle != 0) {
-            Matrix matrix = new Matrix();
-            matrix.setRotate(rotationAngle, (float) bitmap.getWidth() / 2, (float) bitmap.getHeight() / 2);
-            bitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-        }
-
-        return scaleBitmap(bitmap);
-    }
-
-    private Bitmap smartDecode(final String fileLocation, int rotationAngle) {
-        Bitmap decodedFile = BitmapFactory.decodeFile(fileLocation, getDecodeOptions(fileLocation));
-        return scaleAndRotate(decodedFile, rotationAngle);
-    }
-
-    private Bitmap scaleBitmap(final Bitmap bitmap) {
-        final int bitmapWidth = bitmap.getWidth();
-        final int bitmapHeight = bitmap.getHeight();
-        final int maxSize = getResources().getDimensionPixelSize(R.dimen.ClarabridgeChat_imageMaxSize);
-        final float scaleFactor = Math.max((float) bitmapWidth / maxSize, (float) bitmapHeight / maxSize);
-
-        return Bitmap.createScaledBitmap(
-                bitmap,
-                (int) (bitmapWidth / scaleFactor),
-                (int) (bitmapHeight / scaleFactor),
-                false
-        );
-    }
-
-    private BitmapFactory.Options getDecodeOptions(String fileLocation) {
-        // Get the dimensions of the bitmap
-        final int maxSize = getResources().getDimensionPixelSize(R.dimen.ClarabridgeChat_imageMaxSize);
-        final BitmapFactory.Options bmOptions = new BitmapFactory.Options();
-
-        bmOptions.inJustDecodeBounds = true;
-
-        if (fileLocation != null) {
-            BitmapFactory.decodeFile(fileLocation, bmOptions);
-        } else {
-            Log.e(TAG, "No source provided to decode file.");
-        }
-
-        int inSampleSize = 1;
-
-        final int halfHeight = bmOptions.outHeight / 2;
-        final int halfWidth = bmOptions.outWidth / 2;
-
-        // Calculate the largest inSampleSize value that is a power of 2 and keeps both
-        // height and width larger than the requested height and width.
-        while ((halfHeight / inSampleSize) > maxSize || (halfWidth / inSampleSize) > maxSize) {
-            inSampleSize *= 2;
-        }
-
-        // Determine how much to scale down the image
-        bmOptions.inSampleSize = inSampleSize;
-        bmOptions.inJustDecodeBounds = false;
-
-        return bmOptions;
     }
 
     private ClarabridgeChatCallback<Void> onPostbackComplete(final MessageAction messageAction) {
@@ -1699,10 +1633,10 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
         }
     }
 
-    private void showPhotoConfirmationDialog(final Bitmap image) {
+    private void showPhotoConfirmationDialog(final ImagePipeline.PreparedImage image) {
         View dialogView = LayoutInflater.from(getContext()).inflate(R.layout.clarabridgechat_dialog_confirm_photo, null);
         ClarabridgeChatImageView imageView = dialogView.findViewById(R.id.clarabridgechat_confirm_photo_view);
-        imageView.setImageBitmap(image);
+        imageView.setImageBitmap(image.getBitmap());
         imageView.setRoundedCorners(
                 ClarabridgeChatImageView.ROUNDED_CORNER_TOP_LEFT
                         | ClarabridgeChatImageView.ROUNDED_CORNER_TOP_RIGHT
@@ -1717,6 +1651,7 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
                     @Override
                     public void onClick(DialogInterface dialog, int which) {
                         dialog.dismiss();
+                        deletePreparedImage(image);
                     }
                 })
                 .setPositiveButton(R.string.ClarabridgeChat_send, new DialogInterface.OnClickListener() {
@@ -1724,6 +1659,8 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
                     public void onClick(DialogInterface dialog, int which) {
                         if (conversation != null) {
                             uploadImage(image);
+                        } else {
+                            deletePreparedImage(image);
                         }
                     }
                 }).show();
@@ -1740,8 +1677,9 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
         getActivity().sendBroadcast(mediaScanIntent);
     }
 
-    private void uploadImage(final Bitmap image) {
-        final Message message = new Message(image);
+    private void uploadImage(final ImagePipeline.PreparedImage image) {
+        final Message message = new Message(image.getBitmap());
+        message.setFile(image.getFile());
         uploadImage(message, false);
     }
 
@@ -1752,6 +1690,13 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
             conversation.uploadImage(message, new ClarabridgeChatCallback<Message>() {
                 @Override
                 public void run(@NonNull final Response<Message> response) {
+                    boolean isSuccessful = response.getStatus() >= 200 && response.getStatus() < 300;
+
+                    // The prepared image is kept on failure so that the upload can be retried
+                    if (isSuccessful) {
+                        getImagePipeline().deletePreparedFile(message.getFile());
+                    }
+
                     fileUploadEnd(message, response);
                     lstMessages.post(scrollToBottomTask);
                 }
@@ -1797,18 +1742,15 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
 
     private void fileUploadEnd(Message message, ClarabridgeChatCallback.Response<Message> response) {
         if (response.getStatus() == 413) {
-            conversation.removeMessage(message);
-            messageListAdapter.removeMessage(message);
+            removeUploadMessage(message);
 
             showBanner(BannerState.ERROR_FILE_TOO_LARGE);
         } else if (response.getStatus() == 415) {
-            conversation.removeMessage(message);
-            messageListAdapter.removeMessage(message);
+            removeUploadMessage(message);
 
             showBanner(BannerState.ERROR_FILE_TYPE_REJECTED);
         } else if (response.getStatus() == 400 && VIRUS_DETECTED_CODE.equals(response.getError())) {
-            conversation.removeMessage(message);
-            messageListAdapter.removeMessage(message);
+            removeUploadMessage(message);
 
             showBanner(BannerState.ERROR_VIRUS_DETECTED);
         } else {
@@ -1816,6 +1758,18 @@ public class ConversationFragment extends Fragment implements MessageListAdapter
         }
     }
 
+    /**
+     * Removes a message whose upload was rejected, along with its prepared image if it has one,
+     * since the upload can not be retried.
+     *
+     * @param message the {@link Message} to remove
+     */
+    private void removeUploadMessage(Message message) {
+        conversation.removeMessage(message);
+        messageListAdapter.removeMessage(message);
+        getImagePipeline().deletePreparedFile(message.getFile());
+    }
+
     private File createImageFile() throws IOException {
         final String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
         final String imageFileName = CLARABRIDGECHAT_IMAGE_URL + "_" + timeStamp;
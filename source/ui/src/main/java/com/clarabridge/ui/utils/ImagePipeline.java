@@ -0,0 +1,341 @@
+package com.clarabridge.ui.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares images picked or taken by the user for upload, away from the main thread.
+ * <p>
+ * An image is decoded once, sampled down to about the target size, then scaled and rotated
+ * according to its EXIF orientation in a single pass. The result is encoded to a JPEG file in the
+ * cache directory, lowering the quality until the file fits {@link #MAX_ENCODED_SIZE}, so that
+ * the upload can be streamed from disk.
+ * <p>
+ * Decoding a full size photo takes a lot of memory, so at most {@link #MAX_CONCURRENT_DECODES}
+ * images are prepared at the same time across the whole app.
+ * <p>
+ * Prepared images are deleted through {@link #deletePreparedFile(File)} once they are uploaded or
+ * their message is removed. Any left behind by a previous process are deleted when the first
+ * pipeline of the process is created.
+ */
+public class ImagePipeline {
+
+    private static final String TAG = "ImagePipeline";
+
+    private static final int MAX_CONCURRENT_DECODES = 2;
+    private static final long MAX_ENCODED_SIZE = 1024 * 1024;
+    private static final int MAX_QUALITY = 85;
+    private static final int MIN_QUALITY = 55;
+    private static final int QUALITY_STEP = 10;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String FILE_PREFIX = "clarabridgeChat-image";
+    private static final String FILE_SUFFIX = ".jpg";
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    private static final AtomicBoolean STALE_FILES_DELETED = new AtomicBoolean();
+
+    /**
+     * Callback invoked on the main thread once an image is prepared.
+     */
+    public interface Callback {
+
+        /**
+         * @param image the prepared image, or null if the image could not be decoded or encoded
+         */
+        void onImagePrepared(@Nullable PreparedImage image);
+    }
+
+    /**
+     * An image ready to be uploaded.
+     */
+    public static class PreparedImage {
+
+        private final Bitmap bitmap;
+        private final File file;
+
+        PreparedImage(Bitmap bitmap, File file) {
+            this.bitmap = bitmap;
+            this.file = file;
+        }
+
+        /**
+         * @return the scaled and rotated image, to be displayed while it is uploaded
+         */
+        public Bitmap getBitmap() {
+            return bitmap;
+        }
+
+        /**
+         * @return the temporary JPEG file to upload
+         */
+        public File getFile() {
+            return file;
+        }
+    }
+
+    private final File cacheDir;
+    private final int maxSize;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param context the {@link Context} whose cache directory holds the encoded images
+     * @param maxSize the maximum width and height of the prepared images, in pixels
+     */
+    public ImagePipeline(@NonNull Context context, int maxSize) {
+        this.cacheDir = context.getCacheDir();
+        this.maxSize = maxSize;
+
+        // Uploads do not outlive the process, so only the files of previous processes are stale
+        if (STALE_FILES_DELETED.compareAndSet(false, true)) {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deleteStaleFiles();
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the given file if it is an image prepared by this pipeline. Any other file, such as
+     * a file picked by the user, is left untouched.
+     *
+     * @param file the file to delete
+     */
+    public void deletePreparedFile(@Nullable File file) {
+        if (file != null && isPreparedFile(file) && file.exists() && !file.delete()) {
+            Log.w(TAG, "Unable to delete prepared image " + file);
+        }
+    }
+
+    /**
+     * Prepares the image at the given path in the background.
+     *
+     * @param imagePath the path of the image to prepare
+     * @param callback  the {@link Callback} to invoke on the main thread with the result
+     */
+    public void prepare(@NonNull final String imagePath, @NonNull final Callback callback) {
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                PreparedImage image = null;
+
+                try {
+                    image = prepare(imagePath);
+                } finally {
+                    final PreparedImage result = image;
+
+                    // The callback is always invoked so that a failed image is reported to the user
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onImagePrepared(result);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private PreparedImage prepare(String imagePath) {
+        Bitmap bitmap = decode(imagePath);
+
+        if (bitmap == null) {
+            Log.e(TAG, "Unable to decode image " + imagePath);
+            return null;
+        }
+
+        File file = null;
+
+        try {
+            file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, cacheDir);
+            encode(bitmap, file);
+
+            return new PreparedImage(bitmap, file);
+        } catch (IOException | OutOfMemoryError | RuntimeException e) {
+            Log.e(TAG, "Unable to encode image " + imagePath, e);
+
+            if (file != null) {
+                file.delete();
+            }
+
+            bitmap.recycle();
+            return null;
+        }
+    }
+
+    private boolean isPreparedFile(File file) {
+        String name = file.getName();
+        return cacheDir.equals(file.getParentFile())
+                && name.startsWith(FILE_PREFIX)
+                && name.endsWith(FILE_SUFFIX);
+    }
+
+    private void deleteStaleFiles() {
+        File[] files = cacheDir.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            deletePreparedFile(file);
+        }
+    }
+
+    @Nullable
+    private Bitmap decode(String imagePath) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imagePath, options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = getSampleSize(options.outWidth, options.outHeight);
+        options.inJustDecodeBounds = false;
+
+        Bitmap sampled;
+
+        try {
+            sampled = BitmapFactory.decodeFile(imagePath, options);
+        } catch (OutOfMemoryError e) {
+            Log.e(TAG, "Not enough memory to decode image " + imagePath);
+            return null;
+        }
+
+        if (sampled == null) {
+            return null;
+        }
+
+        int width = sampled.getWidth();
+        int height = sampled.getHeight();
+        float scale = Math.min(1f, (float) maxSize / Math.max(width, height));
+        int rotationAngle = getRotationAngle(imagePath);
+
+        if (scale == 1f && rotationAngle == 0) {
+            return sampled;
+        }
+
+        // Scaling and rotating with the same matrix creates a single copy of the sampled image
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotationAngle);
+
+        Bitmap transformed;
+
+        try {
+            transformed = Bitmap.createBitmap(sampled, 0, 0, width, height, matrix, true);
+        } catch (OutOfMemoryError | RuntimeException e) {
+            Log.e(TAG, "Unable to scale image " + imagePath, e);
+            sampled.recycle();
+            return null;
+        }
+
+        if (transformed != sampled) {
+            sampled.recycle();
+        }
+
+        return transformed;
+    }
+
+    /**
+     * @return the largest power of two that keeps the larger dimension of the sampled image at or
+     * above the maximum size, so that scaling it down afterwards does not lose detail
+     */
+    private int getSampleSize(int width, int height) {
+        int sampleSize = 1;
+
+        while (width / (sampleSize * 2) >= maxSize || height / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+
+        return sampleSize;
+    }
+
+    private void encode(Bitmap bitmap, File file) throws IOException {
+        int quality = MAX_QUALITY;
+
+        while (true) {
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+
+            try {
+                if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream)) {
+                    throw new IOException("Unable to compress image");
+                }
+            } finally {
+                outputStream.close();
+            }
+
+            if (file.length() <= MAX_ENCODED_SIZE || quality - QUALITY_STEP < MIN_QUALITY) {
+                return;
+            }
+
+            quality -= QUALITY_STEP;
+        }
+    }
+
+    private int getRotationAngle(String imagePath) {
+        try {
+            ExifInterface exif = new ExifInterface(imagePath);
+            int orientation = exif.getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException ignored) {
+            return 0;
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_CONCURRENT_DECODES,
+                MAX_CONCURRENT_DECODES,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "image-pipeline-" + count.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+}